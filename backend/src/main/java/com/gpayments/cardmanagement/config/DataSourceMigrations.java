@@ -0,0 +1,38 @@
+package com.gpayments.cardmanagement.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+// Flyway for databases other than the one Spring Boot migrates (replicas, shards), with the
+// {vendor} placeholder of spring.flyway.locations resolved per database
+final class DataSourceMigrations {
+
+    private DataSourceMigrations() {
+    }
+
+    static void migrate(DataSource dataSource, List<String> locations) {
+        String vendor = driver(dataSource).getId();
+        Flyway.configure()
+            .dataSource(dataSource)
+            .locations(locations.stream()
+                .map(location -> location.trim().replace("{vendor}", vendor))
+                .toArray(String[]::new))
+            .load()
+            .migrate();
+    }
+
+    static DatabaseDriver driver(DataSource dataSource) {
+        try {
+            String url = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getURL);
+            return DatabaseDriver.fromJdbcUrl(url);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not read database metadata", e);
+        }
+    }
+}
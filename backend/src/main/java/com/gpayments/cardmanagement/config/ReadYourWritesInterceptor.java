@@ -0,0 +1,35 @@
+package com.gpayments.cardmanagement.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Binds the request's client to the thread for replica routing (see ReadYourWritesTracker)
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReadYourWritesInterceptor(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            tracker.begin(SearchLimitInterceptor.clientKey(request));
+        }
+        return true;
+    }
+
+    // The request thread is handed back to the container here, so it must not keep the client
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        tracker.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        tracker.end();
+    }
+}
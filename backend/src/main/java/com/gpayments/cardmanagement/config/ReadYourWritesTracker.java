@@ -0,0 +1,66 @@
+package com.gpayments.cardmanagement.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+
+// Remembers which clients wrote within the replica lag window, so their reads go to the primary and
+// they always see their own writes. The client of the current request is bound to the thread by
+// ReadYourWritesInterceptor; work outside a request (scheduled jobs, ingestion workers, streaming
+// searches) has no client and is routed by its transaction alone.
+public class ReadYourWritesTracker {
+
+    private static final class RequestState {
+        private final String clientKey;
+        private final boolean recentWriter;
+        private boolean wrote;
+
+        private RequestState(String clientKey, boolean recentWriter) {
+            this.clientKey = clientKey;
+            this.recentWriter = recentWriter;
+        }
+    }
+
+    private final Cache<String, Boolean> recentWriters;
+    private final ThreadLocal<RequestState> current = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(Duration window, long maximumClients) {
+        this(window, maximumClients, Ticker.systemTicker());
+    }
+
+    ReadYourWritesTracker(Duration window, long maximumClients, Ticker ticker) {
+        this.recentWriters = Caffeine.newBuilder()
+            .maximumSize(maximumClients)
+            .expireAfterWrite(window)
+            .ticker(ticker)
+            .build();
+    }
+
+    public void begin(String clientKey) {
+        current.set(new RequestState(clientKey, recentWriters.getIfPresent(clientKey) != null));
+    }
+
+    // The window starts when the request ends, after its transaction has committed
+    public void end() {
+        RequestState state = current.get();
+        current.remove();
+        if (state != null && state.wrote) {
+            recentWriters.put(state.clientKey, Boolean.TRUE);
+        }
+    }
+
+    // Called for every connection taken outside a read-only transaction
+    public void recordWrite() {
+        RequestState state = current.get();
+        if (state != null) {
+            state.wrote = true;
+        }
+    }
+
+    public boolean requiresPrimary() {
+        RequestState state = current.get();
+        return state != null && (state.recentWriter || state.wrote);
+    }
+}
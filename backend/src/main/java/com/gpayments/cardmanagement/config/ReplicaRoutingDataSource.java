@@ -0,0 +1,130 @@
+package com.gpayments.cardmanagement.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to the replicas (round robin) and everything else to the primary. The
+// decision is made when a connection is first needed, so this must sit behind a
+// LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after it has begun.
+// Clients that wrote within the replica lag window keep reading from the primary, and a replica that
+// cannot hand out a connection is skipped in favour of the primary rather than failing the search.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter replicaFallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker tracker,
+                                    MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.tracker = tracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.primaryRoutes = Counter.builder("card.datasource.connections")
+            .tag("target", "primary")
+            .description("Connections taken, by the database they were routed to")
+            .register(meterRegistry);
+        this.replicaRoutes = Counter.builder("card.datasource.connections")
+            .tag("target", "replica")
+            .description("Connections taken, by the database they were routed to")
+            .register(meterRegistry);
+        this.replicaFallbacks = Counter.builder("card.datasource.replica.fallbacks")
+            .description("Read-only connections taken from the primary because a replica was unavailable")
+            .register(meterRegistry);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    // Closes the replica pools; the primary pool is a bean of its own
+    public void close() throws Exception {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            return fallBackToPrimary(e);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            return fallBackToPrimary(e);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            tracker.recordWrite();
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (tracker.requiresPrimary()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    // Private helper methods
+    private Connection fallBackToPrimary(SQLException e) throws SQLException {
+        replicaFallbacks.increment();
+        logger.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+        return primary.getConnection();
+    }
+}
@@ -0,0 +1,97 @@
+package com.gpayments.cardmanagement.config;
+
+import com.gpayments.cardmanagement.exception.SearchRejectedException;
+import com.gpayments.cardmanagement.service.AdaptiveConcurrencyLimiter;
+import com.gpayments.cardmanagement.service.SearchRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+// Admission control for the search endpoints: the client's token bucket first (429 when empty), then
+// the adaptive concurrency limit (503 when reached). Both refusals happen before any database or
+// decryption work, so shed requests cost almost nothing.
+@Component
+public class SearchLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = SearchLimitInterceptor.class.getName() + ".permit";
+    private static final String ASYNC_ATTRIBUTE = SearchLimitInterceptor.class.getName() + ".async";
+
+    private final SearchRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    public SearchLimitInterceptor(SearchRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimited = Counter.builder("card.search.rejected")
+            .tag("reason", "rate_limited")
+            .description("Searches refused before execution")
+            .register(meterRegistry);
+        this.overloaded = Counter.builder("card.search.rejected")
+            .tag("reason", "overloaded")
+            .description("Searches refused before execution")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Streaming searches come back through an async dispatch; they were admitted the first time.
+        // CORS preflights do no work.
+        if (request.getDispatcherType() == DispatcherType.ASYNC || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            throw new SearchRejectedException(SearchRejectedException.Reason.RATE_LIMITED, retryAfterSeconds(waitNanos));
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            overloaded.increment();
+            throw new SearchRejectedException(SearchRejectedException.Reason.OVERLOADED, 1);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ASYNC_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter.Permit permit)) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        int status = response.getStatus();
+        if (request.getAttribute(ASYNC_ATTRIBUTE) != null || (ex == null && status >= 400 && status < 500)) {
+            // A stream's duration tracks its result count, and a rejected parameter is no load signal
+            permit.onIgnore();
+        } else if (ex != null || status >= 500) {
+            permit.onDropped();
+        } else {
+            permit.onSuccess();
+        }
+    }
+
+    // Also identifies clients for read-your-writes routing. The remote address, since nothing here
+    // authenticates a client-supplied identity: a header could be changed per request for a fresh bucket.
+    public static String clientKey(HttpServletRequest request) {
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Private helper methods
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
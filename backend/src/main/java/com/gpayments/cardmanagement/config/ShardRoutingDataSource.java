@@ -0,0 +1,69 @@
+package com.gpayments.cardmanagement.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sends connections to the shard bound to the current thread (see CardShards), or to the home shard,
+// shard 0, when none is bound. Like replica routing, the choice is made when a connection is first
+// needed, so this sits behind a LazyConnectionDataSourceProxy and a shard can be bound after the
+// transaction manager has begun a transaction.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<DataSource> shards;
+    private final ThreadLocal<Integer> boundShard = new ThreadLocal<>();
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    // Returns the previously bound shard, to be handed back to restore
+    public Integer bind(int shard) {
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalArgumentException("No shard " + shard);
+        }
+        Integer previous = boundShard.get();
+        boundShard.set(shard);
+        return previous;
+    }
+
+    public void restore(Integer previous) {
+        if (previous == null) {
+            boundShard.remove();
+        } else {
+            boundShard.set(previous);
+        }
+    }
+
+    // Closes the pools of shards 1..n; the home shard's pool is a bean of its own
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = boundShard.get();
+        return shard == null ? 0 : shard;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gpayments.cardmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Card store sharding (app.sharding, enabled by the sharded profile). The spring.datasource database
+// becomes the home shard, shard 0, which also keeps everything that is not a card (data keys, the
+// shard layout); app.sharding.urls adds shards 1..n. Each extra shard is migrated at startup and its
+// card_seq starts in its own range, so every id block Hibernate fetches is unique across shards and ids
+// stay unique when the resharding tool moves cards. Hibernate's pooled optimizer keeps one in-memory
+// block for all shards, though, so a card's id says nothing about which shard holds it.
+// Not combinable with the replica profile: both replace the primary data source.
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardedDataSourceConfig {
+
+    // card_seq of shard i starts above i * 2^40
+    static final long SHARD_ID_RANGE = 1L << 40;
+    // allocationSize of Card's card_seq generator
+    private static final int CARD_ID_BLOCK = 50;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-0");
+        return dataSource;
+    }
+
+    // Pools of shards 1..n are owned by the routing data source and closed with it
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            HikariDataSource homeShardDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${app.sharding.urls}") List<String> urls,
+            @Value("${app.sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${app.sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${app.sharding.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+            @Value("${spring.flyway.locations:classpath:db/migration/{vendor}}") List<String> locations) {
+        List<DataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(homeShardDataSource);
+        for (int i = 1; i <= urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + i);
+            shard.setJdbcUrl(urls.get(i - 1).trim());
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setMaximumPoolSize(poolSize);
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            DataSourceMigrations.migrate(shard, locations);
+            reserveIdRange(shard, i);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    // Moves a shard's card_seq into the shard's id range the first time it starts. Consumes one value;
+    // instances starting against a new shard at the same moment could both restart it, so bring new
+    // shards up with one instance first.
+    static void reserveIdRange(DataSource shard, int index) {
+        DataFieldMaxValueIncrementer sequence = DataSourceMigrations.driver(shard) == DatabaseDriver.POSTGRESQL
+            ? new PostgresSequenceMaxValueIncrementer(shard, "card_seq")
+            : new H2SequenceMaxValueIncrementer(shard, "card_seq");
+        long start = index * SHARD_ID_RANGE;
+        if (sequence.nextLongValue() < start) {
+            // Hibernate's pooled optimizer hands out the block below the value it reads
+            new JdbcTemplate(shard).execute("ALTER SEQUENCE card_seq RESTART WITH " + (start + CARD_ID_BLOCK));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.gpayments.cardmanagement.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Stand-in for database replication when the replicas are local databases (the replica profile's
+// default of in-memory H2): migrates each replica at startup and then copies new cards rows from the
+// primary every interval, so replicas lag the primary by up to one interval as real ones would. Only
+// inserts are copied; updates to existing rows (upserts, token backfill, re-encryption) are not.
+@Component
+@ConditionalOnProperty(name = "app.datasource.replicas.simulated-replication.enabled", havingValue = "true")
+public class SimulatedReplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedReplication.class);
+
+    private static final String SCAN_QUERY = "SELECT * FROM cards WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate primary;
+    private final List<JdbcTemplate> replicas = new ArrayList<>();
+    private final long rescanMargin;
+    private final int batchSize;
+    // Highest card id copied to each replica
+    private final long[] copiedIds;
+
+    public SimulatedReplication(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                @Value("${spring.flyway.locations:classpath:db/migration/{vendor}}") List<String> locations,
+                                @Value("${app.datasource.replicas.simulated-replication.rescan-margin:1000}") long rescanMargin,
+                                @Value("${app.datasource.replicas.simulated-replication.batch-size:10000}") int batchSize) {
+        this.primary = new JdbcTemplate(replicaRoutingDataSource.getPrimary());
+        this.rescanMargin = rescanMargin;
+        this.batchSize = batchSize;
+        for (DataSource replica : replicaRoutingDataSource.getReplicas()) {
+            DataSourceMigrations.migrate(replica, locations);
+            replicas.add(new JdbcTemplate(replica));
+        }
+        this.copiedIds = new long[replicas.size()];
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.simulated-replication.interval:PT1S}")
+    public void replicate() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try {
+                long copied = copyTo(i);
+                if (copied > 0) {
+                    logger.debug("Copied {} cards to replica {}", copied, i);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not copy cards to replica {}: {}", i, e.getMessage());
+            }
+        }
+    }
+
+    // Private helper methods
+    private long copyTo(int index) {
+        JdbcTemplate replica = replicas.get(index);
+        // Ids come from a pooled sequence, so rows just below the last copied id may have committed since
+        long from = Math.max(0, copiedIds[index] - rescanMargin);
+        Set<Long> present = new HashSet<>(replica.queryForList("SELECT id FROM cards WHERE id > ?", Long.class, from));
+        long copied = 0;
+        long lastId = from;
+        while (true) {
+            List<String> columns = new ArrayList<>();
+            List<Object[]> rows = new ArrayList<>();
+            long[] batchLastId = {lastId};
+            int[] batchRows = {0};
+            primary.query(SCAN_QUERY, resultSet -> {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                if (columns.isEmpty()) {
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        columns.add(metaData.getColumnLabel(column));
+                    }
+                }
+                long id = resultSet.getLong("id");
+                if (!present.contains(id)) {
+                    Object[] row = new Object[columns.size()];
+                    for (int column = 0; column < row.length; column++) {
+                        row[column] = resultSet.getObject(column + 1);
+                    }
+                    rows.add(row);
+                }
+                batchLastId[0] = id;
+                batchRows[0]++;
+            }, lastId, batchSize);
+            if (!rows.isEmpty()) {
+                String insert = "INSERT INTO cards (" + String.join(", ", columns) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+                replica.batchUpdate(insert, rows);
+                copied += rows.size();
+            }
+            lastId = batchLastId[0];
+            copiedIds[index] = Math.max(copiedIds[index], lastId);
+            if (batchRows[0] < batchSize) {
+                return copied;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.gpayments.cardmanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SearchLimitInterceptor searchLimitInterceptor;
+
+    public WebConfig(SearchLimitInterceptor searchLimitInterceptor) {
+        this.searchLimitInterceptor = searchLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(searchLimitInterceptor).addPathPatterns("/api/cards/search/**");
+    }
+}
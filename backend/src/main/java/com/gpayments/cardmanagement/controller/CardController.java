@@ -1,19 +1,49 @@
 package com.gpayments.cardmanagement.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gpayments.cardmanagement.config.SearchLimitInterceptor;
+import com.gpayments.cardmanagement.dto.BulkImportResponse;
+import com.gpayments.cardmanagement.dto.CardPage;
 import com.gpayments.cardmanagement.dto.CardRequest;
 import com.gpayments.cardmanagement.dto.CardResponse;
+import com.gpayments.cardmanagement.dto.IngestionStatusResponse;
+import com.gpayments.cardmanagement.dto.PanBatchSearchRequest;
+import com.gpayments.cardmanagement.dto.PanSearchResult;
+import com.gpayments.cardmanagement.service.BulkImportService;
+import com.gpayments.cardmanagement.service.CardExportService;
+import com.gpayments.cardmanagement.service.CardIngestionService;
 import com.gpayments.cardmanagement.service.CardService;
+import com.gpayments.cardmanagement.service.PanBatchSearchService;
+import com.gpayments.cardmanagement.service.SearchRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -23,21 +53,75 @@ public class CardController {
     
     private static final Logger logger = LoggerFactory.getLogger(CardController.class);
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
     private final CardService cardService;
+    private final BulkImportService bulkImportService;
+    private final CardIngestionService cardIngestionService;
+    private final CardExportService cardExportService;
+    private final PanBatchSearchService panBatchSearchService;
+    private final SearchRateLimiter searchRateLimiter;
+    private final ObjectWriter ndjsonWriter;
     
     @Autowired
-    public CardController(CardService cardService) {
+    public CardController(CardService cardService, BulkImportService bulkImportService,
+                          CardIngestionService cardIngestionService, CardExportService cardExportService,
+                          PanBatchSearchService panBatchSearchService, SearchRateLimiter searchRateLimiter,
+                          ObjectMapper objectMapper) {
         this.cardService = cardService;
+        this.bulkImportService = bulkImportService;
+        this.cardIngestionService = cardIngestionService;
+        this.cardExportService = cardExportService;
+        this.panBatchSearchService = panBatchSearchService;
+        this.searchRateLimiter = searchRateLimiter;
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
     }
     
     @PostMapping
-    public ResponseEntity<CardResponse> createCard(@Valid @RequestBody CardRequest request) {
-        logger.info("Creating card for cardholder: {}", request.getCardholderName());
+    public ResponseEntity<?> createCard(@Valid @RequestBody CardRequest request) {
+        if (cardIngestionService.isEnabled()) {
+            IngestionStatusResponse status = cardIngestionService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/cards/ingestion/" + status.getTrackingId()))
+                    .body(status);
+        }
         CardResponse response = cardService.createCard(request);
         logger.info("Card created successfully with ID: {}", response.getId());
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/ingestion/{trackingId}")
+    public ResponseEntity<IngestionStatusResponse> getIngestionStatus(@PathVariable UUID trackingId) {
+        return cardIngestionService.status(trackingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Streams one result per input line, then the counters as the last line. Written on the request
+    // thread like exports, since a large import outlasts the async request timeout.
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public void importCards(InputStream body, HttpServletResponse response) throws IOException {
+        logger.info("Starting bulk card import");
+        response.setContentType(NDJSON.toString());
+        
+        OutputStream out = response.getOutputStream();
+        BulkImportResponse summary;
+        try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+            summary = bulkImportService.importCards(body, result -> {
+                try {
+                    writer.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.write(summary);
+        }
+        logger.info("Bulk import finished: {} created, {} rejected, {} failed",
+                summary.getCreated(), summary.getRejected(), summary.getFailed());
+    }
+    
     @GetMapping("/search/pan")
     public ResponseEntity<List<CardResponse>> searchByPan(
             @RequestParam @NotBlank @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits") 
@@ -48,6 +132,18 @@ public class CardController {
         return ResponseEntity.ok(cards);
     }
     
+    // POST so the PANs travel in the body rather than the URL
+    @PostMapping("/search/pan/batch")
+    public ResponseEntity<List<PanSearchResult>> searchByPans(@Valid @RequestBody PanBatchSearchRequest request,
+                                                              HttpServletRequest httpRequest) {
+        logger.info("Searching cards for a batch of {} PANs", request.getPans().size());
+        // Admission took one permit; every further PAN costs one more, so batches cannot dodge the limit
+        searchRateLimiter.charge(SearchLimitInterceptor.clientKey(httpRequest), request.getPans().size() - 1);
+        List<PanSearchResult> results = panBatchSearchService.search(request.getPans());
+        logger.info("Batch PAN search matched {} cards", results.stream().mapToInt(result -> result.getCards().size()).sum());
+        return ResponseEntity.ok(results);
+    }
+    
     @GetMapping("/search/last-four")
     public ResponseEntity<List<CardResponse>> searchByLastFourDigits(
             @RequestParam @NotBlank @Pattern(regexp = "^\\d{4}$", message = "Last four digits must be exactly 4 digits") 
@@ -57,4 +153,88 @@ public class CardController {
         logger.info("Found {} cards for last four digits search", cards.size());
         return ResponseEntity.ok(cards);
     }
+    
+    @GetMapping("/search/pan/page")
+    public ResponseEntity<CardPage> searchByPanPage(
+            @RequestParam @NotBlank @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits") 
+            String pan,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        logger.info("Searching cards by PAN (page of {})", limit);
+        CardPage page = cardService.searchByPanPage(pan, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping("/search/last-four/page")
+    public ResponseEntity<CardPage> searchByLastFourDigitsPage(
+            @RequestParam @NotBlank @Pattern(regexp = "^\\d{4}$", message = "Last four digits must be exactly 4 digits") 
+            String lastFourDigits,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        logger.info("Searching cards by last four digits: {} (page of {})", lastFourDigits, limit);
+        CardPage page = cardService.searchByLastFourDigitsPage(lastFourDigits, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+    
+    @GetMapping(value = "/search/pan/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByPan(
+            @RequestParam @NotBlank @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits") 
+            String pan) {
+        logger.info("Streaming cards by PAN");
+        return ndjson(sink -> cardService.streamByPan(pan, sink));
+    }
+    
+    @GetMapping(value = "/search/last-four/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamByLastFourDigits(
+            @RequestParam @NotBlank @Pattern(regexp = "^\\d{4}$", message = "Last four digits must be exactly 4 digits") 
+            String lastFourDigits) {
+        logger.info("Streaming cards by last four digits: {}", lastFourDigits);
+        return ndjson(sink -> cardService.streamByLastFourDigits(lastFourDigits, sink));
+    }
+    
+    // Exports run far longer than the async request timeout, so unlike the search streams they write
+    // on the request thread. A broken connection loses nothing: resume with afterId = last id received.
+    @GetMapping("/export")
+    public void exportCards(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "0") @Min(0) long afterId,
+            @RequestParam(defaultValue = "0") @Min(0) long limit,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        CardExportService.Format exportFormat = CardExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        String extension = exportFormat == CardExportService.Format.CSV ? "csv" : "ndjson";
+        String fileName = "cards-after-" + afterId + "." + extension + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip"
+                : exportFormat == CardExportService.Format.CSV ? "text/csv;charset=UTF-8" : NDJSON.toString());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        logger.info("Starting {} card export after id {}", extension, afterId);
+        
+        long exported;
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16);
+            exported = cardExportService.export(afterId, limit, exportFormat, compressed);
+            compressed.finish();
+        } else {
+            exported = cardExportService.export(afterId, limit, exportFormat, out);
+        }
+        out.flush();
+        logger.info("Card export after id {} finished: {} cards", afterId, exported);
+    }
+    
+    // Writes one JSON object per line as the service produces them
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<CardResponse>> producer) {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+                producer.accept(card -> {
+                    try {
+                        writer.write(card);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
 }
@@ -0,0 +1,39 @@
+package com.gpayments.cardmanagement.controller;
+
+import com.gpayments.cardmanagement.dto.DetokenizeRequest;
+import com.gpayments.cardmanagement.dto.TokenResponse;
+import com.gpayments.cardmanagement.dto.TokenizeRequest;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.service.TokenizationService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Tokens and PANs travel in request bodies rather than URLs, so they never end up in access logs
+@RestController
+@RequestMapping("/api/tokens")
+@CrossOrigin(origins = "http://localhost:3000")
+public class TokenController {
+    
+    private final TokenizationService tokenizationService;
+    
+    public TokenController(TokenizationService tokenizationService) {
+        this.tokenizationService = tokenizationService;
+    }
+    
+    @PostMapping
+    public ResponseEntity<TokenResponse> tokenize(@Valid @RequestBody TokenizeRequest request) {
+        try (SecurePan pan = request.getPan()) {
+            return tokenizationService.tokenize(pan)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        }
+    }
+    
+    @PostMapping("/detokenize")
+    public ResponseEntity<TokenResponse> detokenize(@Valid @RequestBody DetokenizeRequest request) {
+        return tokenizationService.detokenize(request.getToken())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,64 @@
+package com.gpayments.cardmanagement.dto;
+
+// Counters for a bulk import; the per-line results are streamed ahead of it rather than held here
+public class BulkImportResponse {
+    
+    private int total;
+    private int created;
+    private int updated;
+    private int rejected;
+    private int failed;
+    
+    public BulkImportResponse() {}
+    
+    public void record(BulkImportResult result) {
+        total++;
+        switch (result.getStatus()) {
+            case CREATED -> created++;
+            case UPDATED -> updated++;
+            case REJECTED -> rejected++;
+            case FAILED -> failed++;
+        }
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+    
+    public void setTotal(int total) {
+        this.total = total;
+    }
+    
+    public int getCreated() {
+        return created;
+    }
+    
+    public void setCreated(int created) {
+        this.created = created;
+    }
+    
+    public int getUpdated() {
+        return updated;
+    }
+    
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+    
+    public int getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+}
@@ -0,0 +1,85 @@
+package com.gpayments.cardmanagement.dto;
+
+public class BulkImportResult {
+    
+    public enum Status {
+        CREATED,
+        // An existing card for the same PAN was updated (UPSERT duplicate policy)
+        UPDATED,
+        REJECTED,
+        FAILED
+    }
+    
+    private int line;
+    private Status status;
+    private Long id;
+    private String maskedPan;
+    private String error;
+    
+    public BulkImportResult() {}
+    
+    public BulkImportResult(int line, Status status, Long id, String maskedPan, String error) {
+        this.line = line;
+        this.status = status;
+        this.id = id;
+        this.maskedPan = maskedPan;
+        this.error = error;
+    }
+    
+    public static BulkImportResult created(int line, Long id, String maskedPan) {
+        return new BulkImportResult(line, Status.CREATED, id, maskedPan, null);
+    }
+    
+    public static BulkImportResult updated(int line, Long id, String maskedPan) {
+        return new BulkImportResult(line, Status.UPDATED, id, maskedPan, null);
+    }
+    
+    public static BulkImportResult rejected(int line, String error) {
+        return new BulkImportResult(line, Status.REJECTED, null, null, error);
+    }
+    
+    public static BulkImportResult failed(int line, String error) {
+        return new BulkImportResult(line, Status.FAILED, null, null, error);
+    }
+    
+    // Getters and Setters
+    public int getLine() {
+        return line;
+    }
+    
+    public void setLine(int line) {
+        this.line = line;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getMaskedPan() {
+        return maskedPan;
+    }
+    
+    public void setMaskedPan(String maskedPan) {
+        this.maskedPan = maskedPan;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.time.LocalDateTime;
+
+// A card change as published to downstream consumers. Delivery is at least once, so consumers should
+// de-duplicate on eventId; events for one card are delivered in eventId order. Same card fields as a
+// search response, so no PAN or ciphertext ever leaves through the event stream.
+public record CardEvent(long eventId, Type type, Long cardId, String cardholderName, String maskedPan, String token,
+                        LocalDateTime createdTime, LocalDateTime occurredTime) {
+
+    public enum Type {
+        CREATED, UPDATED
+    }
+}
@@ -0,0 +1,8 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.time.LocalDateTime;
+
+// One line of a card export. maskedPan and panLength are null for legacy rows written before
+// pan_length existed: the export never decrypts, and the rotation job backfills them
+public record CardExportRow(Long id, String cardholderName, String maskedPan, String lastFourDigits,
+                            Integer panLength, String token, LocalDateTime createdTime) {}
@@ -0,0 +1,34 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.util.List;
+
+public class CardPage {
+    
+    private List<CardResponse> cards;
+    private String nextCursor;
+    
+    public CardPage() {}
+    
+    public CardPage(List<CardResponse> cards, String nextCursor) {
+        this.cards = cards;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<CardResponse> getCards() {
+        return cards;
+    }
+    
+    public void setCards(List<CardResponse> cards) {
+        this.cards = cards;
+    }
+    
+    // Null when there are no more results
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,12 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.time.LocalDateTime;
+
+// CardSummary plus the PAN HMAC it matched, so a multi-PAN query can be grouped back per PAN
+public record CardPanMatch(byte[] panHash, Long id, String cardholderName, String lastFourDigits, Integer panLength,
+                           LocalDateTime createdTime, String panToken) {
+
+    public CardSummary summary() {
+        return new CardSummary(id, cardholderName, lastFourDigits, panLength, createdTime, panToken);
+    }
+}
@@ -1,6 +1,8 @@
 package com.gpayments.cardmanagement.dto;
 
+import com.gpayments.cardmanagement.model.SecurePan;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 
 public class CardRequest {
@@ -8,9 +10,10 @@ public class CardRequest {
     @NotBlank
     private String cardholderName;
     
-    @NotBlank
+    // @NotNull rather than @NotBlank: NotBlank would turn the PAN into a String
+    @NotNull
     @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits")
-    private String pan;
+    private SecurePan pan;
     
     @NotBlank
     @Pattern(regexp = "^(0[1-9]|1[0-2])/([0-9]{2})$", message = "Expiry date must be in MM/YY format")
@@ -28,11 +31,11 @@ public class CardRequest {
         this.cardholderName = cardholderName;
     }
 
-    public String getPan() {
+    public SecurePan getPan() {
         return pan;
     }
 
-    public void setPan(String pan) {
+    public void setPan(SecurePan pan) {
         this.pan = pan;
     }
 
@@ -7,6 +7,7 @@ public class CardResponse {
     private Long id;
     private String cardholderName;
     private String maskedPan;
+    private String token;
     private LocalDateTime createdTime;
     
     public CardResponse() {}
@@ -18,6 +19,11 @@ public class CardResponse {
         this.createdTime = createdTime;
     }
     
+    public CardResponse(Long id, String cardholderName, String maskedPan, String token, LocalDateTime createdTime) {
+        this(id, cardholderName, maskedPan, createdTime);
+        this.token = token;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -43,6 +49,14 @@ public class CardResponse {
         this.maskedPan = maskedPan;
     }
     
+    public String getToken() {
+        return token;
+    }
+    
+    public void setToken(String token) {
+        this.token = token;
+    }
+    
     public LocalDateTime getCreatedTime() {
         return createdTime;
     }
@@ -0,0 +1,8 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.time.LocalDateTime;
+
+// Read projection of a card: only the columns a search response needs, selected with a JPQL
+// constructor expression so no entity, ciphertext or HMAC is loaded or tracked by Hibernate
+public record CardSummary(Long id, String cardholderName, String lastFourDigits, Integer panLength,
+                          LocalDateTime createdTime, String panToken) {}
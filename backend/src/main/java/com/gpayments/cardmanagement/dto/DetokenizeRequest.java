@@ -0,0 +1,19 @@
+package com.gpayments.cardmanagement.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+public class DetokenizeRequest {
+    
+    @NotBlank
+    @Pattern(regexp = "^9\\d{11,18}$", message = "Token must be 12-19 digits starting with 9")
+    private String token;
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -0,0 +1,93 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class IngestionStatusResponse {
+    
+    public enum Status {
+        // Accepted and journaled, waiting for a worker to store it
+        QUEUED,
+        CREATED,
+        // An existing card for the same PAN was updated (UPSERT duplicate policy)
+        UPDATED,
+        REJECTED,
+        FAILED
+    }
+    
+    private UUID trackingId;
+    private Status status;
+    private Long cardId;
+    private String maskedPan;
+    private String error;
+    private LocalDateTime acceptedTime;
+    
+    public IngestionStatusResponse() {}
+    
+    public IngestionStatusResponse(UUID trackingId, Status status, Long cardId, String maskedPan, String error,
+                                   LocalDateTime acceptedTime) {
+        this.trackingId = trackingId;
+        this.status = status;
+        this.cardId = cardId;
+        this.maskedPan = maskedPan;
+        this.error = error;
+        this.acceptedTime = acceptedTime;
+    }
+    
+    public static IngestionStatusResponse queued(UUID trackingId, String maskedPan, LocalDateTime acceptedTime) {
+        return new IngestionStatusResponse(trackingId, Status.QUEUED, null, maskedPan, null, acceptedTime);
+    }
+    
+    public IngestionStatusResponse completed(Status status, Long cardId, String error) {
+        return new IngestionStatusResponse(trackingId, status, cardId, maskedPan, error, acceptedTime);
+    }
+    
+    // Getters and Setters
+    public UUID getTrackingId() {
+        return trackingId;
+    }
+    
+    public void setTrackingId(UUID trackingId) {
+        this.trackingId = trackingId;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Long getCardId() {
+        return cardId;
+    }
+    
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+    
+    public String getMaskedPan() {
+        return maskedPan;
+    }
+    
+    public void setMaskedPan(String maskedPan) {
+        this.maskedPan = maskedPan;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public LocalDateTime getAcceptedTime() {
+        return acceptedTime;
+    }
+    
+    public void setAcceptedTime(LocalDateTime acceptedTime) {
+        this.acceptedTime = acceptedTime;
+    }
+}
@@ -0,0 +1,24 @@
+package com.gpayments.cardmanagement.dto;
+
+import com.gpayments.cardmanagement.model.SecurePan;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.List;
+
+public class PanBatchSearchRequest {
+    
+    // The upper bound on the number of PANs is app.search.pan-batch.max-pans, checked by the service
+    @NotEmpty
+    private List<@NotNull @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits") SecurePan> pans;
+    
+    // Getters and Setters
+    public List<SecurePan> getPans() {
+        return pans;
+    }
+
+    public void setPans(List<SecurePan> pans) {
+        this.pans = pans;
+    }
+}
@@ -0,0 +1,44 @@
+package com.gpayments.cardmanagement.dto;
+
+import java.util.List;
+
+// Matches for one PAN of a batch search; index is the PAN's position in the request
+public class PanSearchResult {
+    
+    private int index;
+    private String maskedPan;
+    private List<CardResponse> cards;
+    
+    public PanSearchResult() {}
+    
+    public PanSearchResult(int index, String maskedPan, List<CardResponse> cards) {
+        this.index = index;
+        this.maskedPan = maskedPan;
+        this.cards = cards;
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public String getMaskedPan() {
+        return maskedPan;
+    }
+    
+    public void setMaskedPan(String maskedPan) {
+        this.maskedPan = maskedPan;
+    }
+    
+    public List<CardResponse> getCards() {
+        return cards;
+    }
+    
+    public void setCards(List<CardResponse> cards) {
+        this.cards = cards;
+    }
+}
@@ -0,0 +1,41 @@
+package com.gpayments.cardmanagement.dto;
+
+public class TokenResponse {
+    
+    private String token;
+    private Long cardId;
+    private String maskedPan;
+    
+    public TokenResponse() {}
+    
+    public TokenResponse(String token, Long cardId, String maskedPan) {
+        this.token = token;
+        this.cardId = cardId;
+        this.maskedPan = maskedPan;
+    }
+    
+    // Getters and Setters
+    public String getToken() {
+        return token;
+    }
+    
+    public void setToken(String token) {
+        this.token = token;
+    }
+    
+    public Long getCardId() {
+        return cardId;
+    }
+    
+    public void setCardId(Long cardId) {
+        this.cardId = cardId;
+    }
+    
+    public String getMaskedPan() {
+        return maskedPan;
+    }
+    
+    public void setMaskedPan(String maskedPan) {
+        this.maskedPan = maskedPan;
+    }
+}
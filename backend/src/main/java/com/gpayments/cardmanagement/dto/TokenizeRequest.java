@@ -0,0 +1,21 @@
+package com.gpayments.cardmanagement.dto;
+
+import com.gpayments.cardmanagement.model.SecurePan;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+public class TokenizeRequest {
+    
+    // @NotNull rather than @NotBlank: NotBlank would turn the PAN into a String
+    @NotNull
+    @Pattern(regexp = "^\\d{12,19}$", message = "PAN must be 12-19 digits")
+    private SecurePan pan;
+
+    public SecurePan getPan() {
+        return pan;
+    }
+
+    public void setPan(SecurePan pan) {
+        this.pan = pan;
+    }
+}
@@ -0,0 +1,7 @@
+package com.gpayments.cardmanagement.exception;
+
+public class DuplicateCardException extends RuntimeException {
+    public DuplicateCardException(String message) {
+        super(message);
+    }
+}
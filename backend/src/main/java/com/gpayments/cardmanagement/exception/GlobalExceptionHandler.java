@@ -1,7 +1,10 @@
 package com.gpayments.cardmanagement.exception;
 
+import com.gpayments.cardmanagement.service.CardMetrics;
+import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -17,6 +20,12 @@ public class GlobalExceptionHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
     
+    private final CardMetrics metrics;
+    
+    public GlobalExceptionHandler(CardMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -24,6 +33,22 @@ public class GlobalExceptionHandler {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
+            metrics.recordValidationFailure(fieldName + "." + error.getCode());
+        });
+        logger.warn("Validation error: {}", errors);
+        return ResponseEntity.badRequest().body(errors);
+    }
+    
+    // Request parameter constraints (@Validated controller methods)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Map<String, String>> handleConstraintViolationException(ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getConstraintViolations().forEach(violation -> {
+            String path = violation.getPropertyPath().toString();
+            String parameterName = path.substring(path.lastIndexOf('.') + 1);
+            errors.put(parameterName, violation.getMessage());
+            metrics.recordValidationFailure(parameterName + "."
+                + violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName());
         });
         logger.warn("Validation error: {}", errors);
         return ResponseEntity.badRequest().body(errors);
@@ -32,9 +57,35 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Void> handleIllegalArgumentException(IllegalArgumentException ex) {
         logger.warn("Invalid argument: {}", ex.getMessage());
+        metrics.recordValidationFailure("invalid_argument");
         return ResponseEntity.badRequest().build();
     }
     
+    @ExceptionHandler(DuplicateCardException.class)
+    public ResponseEntity<Map<String, String>> handleDuplicateCardException(DuplicateCardException ex) {
+        logger.warn("Duplicate card: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("pan", ex.getMessage()));
+    }
+    
+    @ExceptionHandler(IngestionBacklogException.class)
+    public ResponseEntity<Void> handleIngestionBacklogException(IngestionBacklogException ex) {
+        logger.warn("Ingestion backlog: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+    
+    @ExceptionHandler(SearchRejectedException.class)
+    public ResponseEntity<Void> handleSearchRejectedException(SearchRejectedException ex) {
+        logger.debug("Search rejected: {}", ex.getMessage());
+        HttpStatus status = ex.getReason() == SearchRejectedException.Reason.RATE_LIMITED
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .build();
+    }
+    
     @ExceptionHandler(CardManagementException.class)
     public ResponseEntity<Void> handleCardManagementException(CardManagementException ex) {
         logger.error("Card management error: {}", ex.getMessage(), ex);
@@ -0,0 +1,7 @@
+package com.gpayments.cardmanagement.exception;
+
+public class IngestionBacklogException extends RuntimeException {
+    public IngestionBacklogException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,28 @@
+package com.gpayments.cardmanagement.exception;
+
+public class SearchRejectedException extends RuntimeException {
+
+    public enum Reason {
+        // The client exceeded its own rate limit (429)
+        RATE_LIMITED,
+        // The service is at its concurrency limit (503)
+        OVERLOADED
+    }
+
+    private final Reason reason;
+    private final long retryAfterSeconds;
+
+    public SearchRejectedException(Reason reason, long retryAfterSeconds) {
+        super(reason == Reason.RATE_LIMITED ? "Search rate limit exceeded" : "Search capacity exhausted");
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -4,33 +4,59 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
-@Table(name = "cards")
+@Table(name = "cards", indexes = {
+    @Index(name = "idx_cards_pan_hmac", columnList = "pan_hmac"),
+    @Index(name = "idx_cards_last_four_created", columnList = "last_four_digits, created_time, id"),
+    @Index(name = "idx_cards_created_time", columnList = "created_time, id"),
+    @Index(name = "idx_cards_pan_token", columnList = "pan_token", unique = true),
+    @Index(name = "idx_cards_ingestion_id", columnList = "ingestion_id", unique = true)
+})
 public class Card {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_seq")
+    @SequenceGenerator(name = "card_seq", sequenceName = "card_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
     @Column(name = "cardholder_name", nullable = false)
     private String cardholderName;
     
-    @NotNull
-    @Column(name = "encrypted_pan", nullable = false, columnDefinition = "TEXT")
-    private String encryptedPan;
+    // AES-256-GCM ciphertext (with tag) under data key dataKeyId
+    @Column(name = "pan_ciphertext", length = 64)
+    private byte[] encryptedPan;
     
-    @NotNull
-    @Column(name = "pan_hash", nullable = false)
-    private String panHash;
+    @Column(name = "pan_nonce", length = 12)
+    private byte[] panNonce;
+    
+    @Column(name = "data_key_id")
+    private Integer dataKeyId;
+    
+    // Base64 AES-CBC ciphertext from before envelope encryption; cleared once re-encrypted
+    @Column(name = "encrypted_pan", columnDefinition = "TEXT")
+    private String legacyEncryptedPan;
+    
+    // HMAC-SHA256 of the PAN; null only for legacy rows the rehash job has not reached yet
+    @Column(name = "pan_hmac", length = 32)
+    private byte[] panHash;
     
     @NotNull
     @Column(name = "last_four_digits", nullable = false)
     private String lastFourDigits;
     
-    @Column(name = "iv")
-    private String iv;
+    @Column(name = "pan_length")
+    private Integer panLength;
+    
+    // Surrogate token handed out instead of the PAN; null for rows created before tokenization
+    @Column(name = "pan_token", length = 19)
+    private String panToken;
+    
+    // Tracking ID of the asynchronous ingestion that created the card; null for other writes
+    @Column(name = "ingestion_id")
+    private UUID ingestionId;
     
     @Column(name = "created_time")
     private LocalDateTime createdTime;
@@ -56,19 +82,43 @@ public class Card {
         this.cardholderName = cardholderName;
     }
     
-    public String getEncryptedPan() {
+    public byte[] getEncryptedPan() {
         return encryptedPan;
     }
     
-    public void setEncryptedPan(String encryptedPan) {
+    public void setEncryptedPan(byte[] encryptedPan) {
         this.encryptedPan = encryptedPan;
     }
     
-    public String getPanHash() {
+    public byte[] getPanNonce() {
+        return panNonce;
+    }
+    
+    public void setPanNonce(byte[] panNonce) {
+        this.panNonce = panNonce;
+    }
+    
+    public Integer getDataKeyId() {
+        return dataKeyId;
+    }
+    
+    public void setDataKeyId(Integer dataKeyId) {
+        this.dataKeyId = dataKeyId;
+    }
+    
+    public String getLegacyEncryptedPan() {
+        return legacyEncryptedPan;
+    }
+    
+    public void setLegacyEncryptedPan(String legacyEncryptedPan) {
+        this.legacyEncryptedPan = legacyEncryptedPan;
+    }
+    
+    public byte[] getPanHash() {
         return panHash;
     }
     
-    public void setPanHash(String panHash) {
+    public void setPanHash(byte[] panHash) {
         this.panHash = panHash;
     }
     
@@ -80,12 +130,28 @@ public class Card {
         this.lastFourDigits = lastFourDigits;
     }
     
-    public String getIv() {
-        return iv;
+    public Integer getPanLength() {
+        return panLength;
+    }
+    
+    public void setPanLength(Integer panLength) {
+        this.panLength = panLength;
+    }
+    
+    public String getPanToken() {
+        return panToken;
+    }
+    
+    public void setPanToken(String panToken) {
+        this.panToken = panToken;
+    }
+    
+    public UUID getIngestionId() {
+        return ingestionId;
     }
     
-    public void setIv(String iv) {
-        this.iv = iv;
+    public void setIngestionId(UUID ingestionId) {
+        this.ingestionId = ingestionId;
     }
     
     public LocalDateTime getCreatedTime() {
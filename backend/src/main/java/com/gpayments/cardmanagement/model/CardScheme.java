@@ -0,0 +1,48 @@
+package com.gpayments.cardmanagement.model;
+
+// Card schemes recognised from the leading six digits (BIN/IIN) of a PAN, with the PAN
+// lengths each scheme issues. Ranges are inclusive and expressed over six-digit prefixes.
+public enum CardScheme {
+    
+    VISA(new int[][] {{400000, 499999}}, 13, 16, 19),
+    MASTERCARD(new int[][] {{510000, 559999}, {222100, 272099}}, 16),
+    AMEX(new int[][] {{340000, 349999}, {370000, 379999}}, 15),
+    DISCOVER(new int[][] {{601100, 601199}, {644000, 659999}}, 16, 17, 18, 19),
+    JCB(new int[][] {{352800, 358999}}, 16, 17, 18, 19),
+    DINERS(new int[][] {{300000, 305999}, {360000, 369999}, {380000, 399999}}, 14, 15, 16, 17, 18, 19),
+    UNIONPAY(new int[][] {{620000, 629999}}, 16, 17, 18, 19),
+    // Unrecognised BINs are only held to the generic 12-19 digit rule
+    UNKNOWN(new int[0][], 12, 13, 14, 15, 16, 17, 18, 19);
+    
+    public static final int BIN_LENGTH = 6;
+    
+    // values() clones the array on every call, so keep one copy for the lookup loop
+    private static final CardScheme[] KNOWN = {VISA, MASTERCARD, AMEX, DISCOVER, JCB, DINERS, UNIONPAY};
+    
+    private final int[][] binRanges;
+    private final int lengthMask;
+    
+    CardScheme(int[][] binRanges, int... lengths) {
+        this.binRanges = binRanges;
+        int mask = 0;
+        for (int length : lengths) {
+            mask |= 1 << length;
+        }
+        this.lengthMask = mask;
+    }
+    
+    public boolean acceptsLength(int length) {
+        return length >= 0 && length < Integer.SIZE && (lengthMask & (1 << length)) != 0;
+    }
+    
+    public static CardScheme fromBin(int bin) {
+        for (CardScheme scheme : KNOWN) {
+            for (int[] range : scheme.binRanges) {
+                if (bin >= range[0] && bin <= range[1]) {
+                    return scheme;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
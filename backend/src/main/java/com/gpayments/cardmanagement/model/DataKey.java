@@ -0,0 +1,62 @@
+package com.gpayments.cardmanagement.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+// A per-deployment AES-256 data key, stored only in wrapped (master-key encrypted) form
+@Entity
+@Table(name = "data_keys")
+public class DataKey {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @NotNull
+    @Column(name = "wrapped_key", nullable = false)
+    private byte[] wrappedKey;
+    
+    @Column(name = "active", nullable = false)
+    private boolean active;
+    
+    @Column(name = "created_time", nullable = false)
+    private LocalDateTime createdTime;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdTime = LocalDateTime.now();
+    }
+    
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public byte[] getWrappedKey() {
+        return wrappedKey;
+    }
+    
+    public void setWrappedKey(byte[] wrappedKey) {
+        this.wrappedKey = wrappedKey;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+    
+    public void setCreatedTime(LocalDateTime createdTime) {
+        this.createdTime = createdTime;
+    }
+}
@@ -0,0 +1,123 @@
+package com.gpayments.cardmanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// A PAN held as mutable ASCII digits instead of an immutable String, so it can be zeroed once the
+// request is done with it. Jackson decodes it straight from the parser's character buffer, and
+// validation, hashing and encryption read the same array, so a create never materialises the PAN as
+// a String. toString() and JSON serialization only ever produce the masked form.
+//
+// It is a CharSequence so @Pattern can validate it and CharSequence-based services accept it; note
+// that, unlike the CharSequence contract, toString() does not return the digits.
+@JsonDeserialize(using = SecurePan.Deserializer.class)
+public final class SecurePan implements CharSequence, AutoCloseable {
+
+    private final byte[] digits;
+    private volatile boolean wiped;
+
+    private SecurePan(byte[] digits) {
+        this.digits = digits;
+    }
+
+    // Copies the characters; prefer the JSON path, which never builds a String
+    public static SecurePan of(CharSequence pan) {
+        byte[] digits = new byte[pan.length()];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = ascii(pan.charAt(i));
+        }
+        return new SecurePan(digits);
+    }
+
+    // The live backing array, not a copy: read it, never keep or modify it
+    public byte[] digits() {
+        if (wiped) {
+            throw new IllegalStateException("PAN has been wiped");
+        }
+        return digits;
+    }
+
+    public String lastFour() {
+        byte[] value = digits();
+        int from = Math.max(0, value.length - 4);
+        char[] lastFour = new char[value.length - from];
+        for (int i = 0; i < lastFour.length; i++) {
+            lastFour[i] = (char) value[from + i];
+        }
+        return new String(lastFour);
+    }
+
+    @JsonValue
+    public String masked() {
+        if (wiped) {
+            return "*".repeat(digits.length);
+        }
+        return "*".repeat(Math.max(0, digits.length - 4)) + lastFour();
+    }
+
+    public void wipe() {
+        wiped = true;
+        Arrays.fill(digits, (byte) 0);
+    }
+
+    @Override
+    public void close() {
+        wipe();
+    }
+
+    @Override
+    public int length() {
+        return digits.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) digits()[index];
+    }
+
+    // Returns a new SecurePan that the caller must wipe
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new SecurePan(Arrays.copyOfRange(digits(), start, end));
+    }
+
+    @Override
+    public String toString() {
+        return masked();
+    }
+
+    // PANs are ASCII digits; anything else becomes '?' so it fails validation instead of being truncated
+    private static byte ascii(char c) {
+        return c < 0x80 ? (byte) c : (byte) '?';
+    }
+
+    public static final class Deserializer extends StdDeserializer<SecurePan> {
+
+        public Deserializer() {
+            super(SecurePan.class);
+        }
+
+        @Override
+        public SecurePan deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NUMBER_INT) {
+                return (SecurePan) context.handleUnexpectedToken(SecurePan.class, parser);
+            }
+            // Reads the parser's own buffer; no String is created for the value
+            char[] text = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            byte[] digits = new byte[parser.getTextLength()];
+            for (int i = 0; i < digits.length; i++) {
+                digits[i] = ascii(text[offset + i]);
+            }
+            return new SecurePan(digits);
+        }
+    }
+}
@@ -1,16 +1,167 @@
 package com.gpayments.cardmanagement.repository;
 
+import com.gpayments.cardmanagement.dto.CardPanMatch;
+import com.gpayments.cardmanagement.dto.CardSummary;
 import com.gpayments.cardmanagement.model.Card;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
     
-    @Query("SELECT c FROM Card c WHERE c.panHash = :panHash")
-    List<Card> findByPanHash(@Param("panHash") String panHash);
+    // Search projections. Constructor expressions return plain records, so results are never
+    // added to the persistence context and large columns (ciphertext, HMAC) are never read
+    String SUMMARY_SELECT =
+        "SELECT new com.gpayments.cardmanagement.dto.CardSummary("
+            + "c.id, c.cardholderName, c.lastFourDigits, c.panLength, c.createdTime, c.panToken) FROM Card c";
     
-    @Query("SELECT c FROM Card c WHERE c.lastFourDigits = :lastFourDigits")
-    List<Card> findByLastFourDigits(@Param("lastFourDigits") String lastFourDigits);
+    @Query(SUMMARY_SELECT + " WHERE c.panHash = :panHash ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummariesByPanHash(@Param("panHash") byte[] panHash);
+    
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummariesByLastFourDigits(@Param("lastFourDigits") String lastFourDigits);
+    
+    // Rows resolved through the in-memory last-four index; callers keep the id list to a bounded size.
+    // The suffix is re-checked so ids from a stale index never return another card
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits AND c.id IN :ids ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummariesByLastFourDigitsAndIdIn(@Param("lastFourDigits") String lastFourDigits,
+                                                           @Param("ids") Collection<Long> ids);
+    
+    // Cards the in-memory last-four index may not have seen yet
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits AND c.createdTime >= :since"
+            + " ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummariesByLastFourDigitsCreatedSince(@Param("lastFourDigits") String lastFourDigits,
+                                                                @Param("since") LocalDateTime since);
+    
+    // Batch PAN search; callers keep the hash list to a bounded size
+    @Query("SELECT new com.gpayments.cardmanagement.dto.CardPanMatch("
+            + "c.panHash, c.id, c.cardholderName, c.lastFourDigits, c.panLength, c.createdTime, c.panToken)"
+            + " FROM Card c WHERE c.panHash IN :panHashes ORDER BY c.createdTime, c.id")
+    List<CardPanMatch> findMatchesByPanHashIn(@Param("panHashes") Collection<byte[]> panHashes);
+    
+    // Most recent card for a PAN, for duplicate checks and upserts
+    Optional<Card> findFirstByPanHashOrderByCreatedTimeDescIdDesc(byte[] panHash);
+    
+    @Query("SELECT c.id FROM Card c WHERE c.panToken = :panToken")
+    Optional<Long> findIdByPanToken(@Param("panToken") String panToken);
+    
+    // Sets the token only if the card has none yet, so concurrent issuers cannot overwrite each other
+    @Modifying
+    @Query("UPDATE Card c SET c.panToken = :panToken WHERE c.id = :id AND c.panToken IS NULL")
+    int assignPanToken(@Param("id") Long id, @Param("panToken") String panToken);
+    
+    @Query("SELECT c.panToken FROM Card c WHERE c.id = :id")
+    Optional<String> findPanTokenById(@Param("id") Long id);
+    
+    @Query("SELECT c.id FROM Card c WHERE c.ingestionId = :ingestionId")
+    Optional<Long> findIdByIngestionId(@Param("ingestionId") UUID ingestionId);
+    
+    // Keyset pagination on (createdTime, id): the page size comes from the Pageable,
+    // its offset is always zero and the cursor carries the last row already returned
+    @Query(SUMMARY_SELECT + " WHERE c.panHash = :panHash ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummaryPageByPanHash(@Param("panHash") byte[] panHash, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + " WHERE c.panHash = :panHash"
+            + " AND (c.createdTime > :createdTime OR (c.createdTime = :createdTime AND c.id > :id))"
+            + " ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummaryPageByPanHashAfter(@Param("panHash") byte[] panHash,
+                                                    @Param("createdTime") LocalDateTime createdTime,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummaryPageByLastFourDigits(@Param("lastFourDigits") String lastFourDigits, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits"
+            + " AND (c.createdTime > :createdTime OR (c.createdTime = :createdTime AND c.id > :id))"
+            + " ORDER BY c.createdTime, c.id")
+    List<CardSummary> findSummaryPageByLastFourDigitsAfter(@Param("lastFourDigits") String lastFourDigits,
+                                                           @Param("createdTime") LocalDateTime createdTime,
+                                                           @Param("id") Long id,
+                                                           Pageable pageable);
+    
+    // Legacy rows still waiting for an HMAC, in id order so the rehash job can resume after failures
+    @Query("SELECT c FROM Card c WHERE c.panHash IS NULL AND c.id > :afterId ORDER BY c.id")
+    List<Card> findPageWithoutPanHash(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Writes only the hash, so a concurrent update of the card's other columns is never overwritten.
+    // The legacy unkeyed SHA-256 (unmapped pan_hash column) is cleared in the same statement
+    @Modifying
+    @Query(value = "UPDATE cards SET pan_hmac = :panHash, pan_hash = NULL WHERE id = :id AND pan_hmac IS NULL",
+           nativeQuery = true)
+    int assignPanHash(@Param("id") Long id, @Param("panHash") byte[] panHash);
+    
+    // Legacy SHA-256 values left on rows that already have an HMAC
+    @Modifying
+    @Query(value = "UPDATE cards SET pan_hash = NULL WHERE pan_hash IS NOT NULL AND pan_hmac IS NOT NULL",
+           nativeQuery = true)
+    int clearLegacyPanHashes();
+    
+    // Rows still encrypted under an older data key (or legacy AES-CBC), for the rotation job
+    @Query("SELECT c FROM Card c WHERE c.id > :afterId"
+            + " AND (c.dataKeyId IS NULL OR c.dataKeyId <> :dataKeyId) ORDER BY c.id")
+    List<Card> findPageNotEncryptedWith(@Param("dataKeyId") Integer dataKeyId,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+    
+    // Writes only the PAN columns, and only while the row is still under the key it was read with, so
+    // neither a concurrent cardholder name update nor another instance's re-encryption is overwritten
+    @Modifying
+    @Query("UPDATE Card c SET c.encryptedPan = :ciphertext, c.panNonce = :nonce, c.dataKeyId = :dataKeyId,"
+            + " c.panLength = :panLength WHERE c.id = :id AND c.dataKeyId = :previousDataKeyId")
+    int reencryptPan(@Param("id") Long id,
+                     @Param("previousDataKeyId") Integer previousDataKeyId,
+                     @Param("ciphertext") byte[] ciphertext,
+                     @Param("nonce") byte[] nonce,
+                     @Param("dataKeyId") Integer dataKeyId,
+                     @Param("panLength") Integer panLength);
+    
+    // As reencryptPan, for a row still in the legacy AES-CBC format
+    @Modifying
+    @Query("UPDATE Card c SET c.encryptedPan = :ciphertext, c.panNonce = :nonce, c.dataKeyId = :dataKeyId,"
+            + " c.legacyEncryptedPan = NULL, c.panLength = :panLength WHERE c.id = :id AND c.dataKeyId IS NULL")
+    int reencryptLegacyPan(@Param("id") Long id,
+                           @Param("ciphertext") byte[] ciphertext,
+                           @Param("nonce") byte[] nonce,
+                           @Param("dataKeyId") Integer dataKeyId,
+                           @Param("panLength") Integer panLength);
+    
+    // Export pages, for merging the shards' id orders
+    @Query(SUMMARY_SELECT + " WHERE c.id > :afterId ORDER BY c.id")
+    List<CardSummary> findSummaryPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Streams must be consumed inside a transaction and closed by the caller. Rows are fetched
+    // from the cursor in batches of 500 and, being projections, never accumulate in the session
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + " WHERE c.panHash = :panHash ORDER BY c.createdTime, c.id")
+    Stream<CardSummary> streamSummariesByPanHash(@Param("panHash") byte[] panHash);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + " WHERE c.lastFourDigits = :lastFourDigits ORDER BY c.createdTime, c.id")
+    Stream<CardSummary> streamSummariesByLastFourDigits(@Param("lastFourDigits") String lastFourDigits);
+    
+    // Whole-table walk in id order for exports; resuming after the last exported id is a plain range scan
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT + " WHERE c.id > :afterId ORDER BY c.id")
+    Stream<CardSummary> streamSummariesAfterId(@Param("afterId") Long afterId);
 }
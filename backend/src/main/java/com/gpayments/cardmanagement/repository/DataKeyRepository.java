@@ -0,0 +1,17 @@
+package com.gpayments.cardmanagement.repository;
+
+import com.gpayments.cardmanagement.model.DataKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface DataKeyRepository extends JpaRepository<DataKey, Integer> {
+    
+    Optional<DataKey> findFirstByActiveTrueOrderByIdDesc();
+    
+    @Modifying
+    @Query("UPDATE DataKey k SET k.active = false WHERE k.active = true AND k.id <> :id")
+    int deactivateAllExcept(@Param("id") Integer id);
+}
@@ -0,0 +1,173 @@
+package com.gpayments.cardmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Caps concurrent searches at a limit found by AIMD: the limit grows by about one per round trip
+// while latency holds, and is cut by backoff-ratio when it does not. "Holds" is judged gradient-style:
+// the recent latency average is compared with a long-term average that stops learning while
+// overloaded, so a slow search type does not by itself shrink the limit. Searches over the limit are
+// refused immediately rather than queued, which keeps latency of admitted searches bounded.
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    // Smoothing windows, in samples, of the short- and long-term latency averages
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long maxLatencyNanos;
+    private final double backoffRatio;
+    private final Ticker ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private long decreasedAt;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(@Value("${app.search.concurrency.enabled:true}") boolean enabled,
+                                      @Value("${app.search.concurrency.initial-limit:20}") int initialLimit,
+                                      @Value("${app.search.concurrency.min-limit:2}") int minLimit,
+                                      @Value("${app.search.concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${app.search.concurrency.tolerance:2.0}") double tolerance,
+                                      @Value("${app.search.concurrency.max-latency:PT1S}") Duration maxLatency,
+                                      @Value("${app.search.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                      MeterRegistry meterRegistry) {
+        this(enabled, initialLimit, minLimit, maxLimit, tolerance, maxLatency, backoffRatio, meterRegistry,
+            Ticker.systemTicker());
+    }
+
+    AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit, double tolerance,
+                               Duration maxLatency, double backoffRatio, MeterRegistry meterRegistry, Ticker ticker) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (tolerance <= 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Tolerance must exceed 1 and backoff ratio must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.ticker = ticker;
+        Gauge.builder("card.search.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive limit on concurrent searches")
+            .register(meterRegistry);
+        Gauge.builder("card.search.concurrency.in-flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Searches currently admitted by the concurrency limiter")
+            .register(meterRegistry);
+    }
+
+    // Null when the limit is reached; otherwise exactly one of the permit's methods must be called
+    public Permit tryAcquire() {
+        if (!enabled) {
+            return new Permit(ticker.read(), 0, false);
+        }
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                return null;
+            }
+            inFlight++;
+            return new Permit(ticker.read(), inFlight, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Permit {
+
+        private final long startedAt;
+        private final int inFlightAtStart;
+        private final boolean counted;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startedAt, int inFlightAtStart, boolean counted) {
+            this.startedAt = startedAt;
+            this.inFlightAtStart = inFlightAtStart;
+            this.counted = counted;
+        }
+
+        public void onSuccess() {
+            release(this, false, true);
+        }
+
+        // Timed out or failed because the system was overloaded
+        public void onDropped() {
+            release(this, true, true);
+        }
+
+        // Finished, but its latency says nothing about load (client errors, long-lived streams)
+        public void onIgnore() {
+            release(this, false, false);
+        }
+    }
+
+    // Private helper methods
+    private void release(Permit permit, boolean dropped, boolean sample) {
+        if (!permit.counted || !permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        long now = ticker.read();
+        long latency = now - permit.startedAt;
+        lock.lock();
+        try {
+            inFlight--;
+            if (!sample) {
+                return;
+            }
+            shortLatency = shortLatency == 0 ? latency : shortLatency + (latency - shortLatency) / SHORT_WINDOW;
+            boolean overloaded = dropped || latency > maxLatencyNanos
+                || (longLatency > 0 && shortLatency > tolerance * longLatency);
+            if (overloaded) {
+                // At most one cut per round trip, so one slow burst is not punished once per request
+                if (now - decreasedAt >= shortLatency) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    decreasedAt = now;
+                }
+                return;
+            }
+            longLatency = longLatency == 0 ? latency : longLatency + (latency - longLatency) / LONG_WINDOW;
+            // Only grow when the limit was actually being used
+            if (permit.inFlightAtStart * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gpayments.cardmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gpayments.cardmanagement.dto.BulkImportResponse;
+import com.gpayments.cardmanagement.dto.BulkImportResult;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.model.SecurePan;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private final CardService cardService;
+    private final CardBatchWriter cardBatchWriter;
+    private final EncryptionService encryptionService;
+    private final Validator validator;
+    private final ObjectReader requestReader;
+    private final ForkJoinPool workerPool;
+    private final int batchSize;
+
+    public BulkImportService(CardService cardService,
+                             CardBatchWriter cardBatchWriter,
+                             EncryptionService encryptionService,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${app.bulk.batch-size:500}") int batchSize,
+                             @Value("${app.bulk.parallelism:0}") int parallelism) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Bulk batch size must be positive");
+        }
+        this.cardService = cardService;
+        this.cardBatchWriter = cardBatchWriter;
+        this.encryptionService = encryptionService;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(CardRequest.class);
+        this.batchSize = batchSize;
+        // Validation and encryption are CPU bound, so default to one worker per core. This stays a platform
+        // pool in virtual-thread mode: more threads than cores would not make CPU-bound work any faster
+        this.workerPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Reads one CardRequest per line; each chunk of batch-size lines is prepared in parallel
+    // and written in its own transaction so a bad batch never rolls back earlier ones. Results go
+    // to the sink chunk by chunk, so memory stays bounded by the batch size however long the input
+    public BulkImportResponse importCards(InputStream ndjson, Consumer<BulkImportResult> sink) throws IOException {
+        BulkImportResponse summary = new BulkImportResponse();
+        List<PendingRecord> chunk = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new PendingRecord(lineNumber, line));
+            if (chunk.size() == batchSize) {
+                emit(processChunk(chunk), summary, sink);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            emit(processChunk(chunk), summary, sink);
+        }
+
+        return summary;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdown();
+    }
+
+    // Private helper methods
+    private static void emit(List<BulkImportResult> results, BulkImportResponse summary,
+                             Consumer<BulkImportResult> sink) {
+        for (BulkImportResult result : results) {
+            summary.record(result);
+            sink.accept(result);
+        }
+    }
+
+    private List<BulkImportResult> processChunk(List<PendingRecord> chunk) {
+        List<PreparedRecord> prepared;
+        try {
+            prepared = workerPool.submit(() -> chunk.parallelStream()
+                    .map(this::prepare)
+                    .toList())
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardManagementException("Bulk import interrupted", e);
+        } catch (Exception e) {
+            throw new CardManagementException("Error preparing bulk import batch", e);
+        }
+
+        List<Card> valid = prepared.stream()
+            .map(PreparedRecord::card)
+            .filter(Objects::nonNull)
+            .toList();
+        CardBatchWriter.BatchWrite write = cardBatchWriter.write(valid);
+
+        List<BulkImportResult> results = new ArrayList<>(prepared.size());
+        int next = 0;
+        for (PreparedRecord record : prepared) {
+            if (record.card() == null) {
+                results.add(BulkImportResult.rejected(record.line(), record.error()));
+                continue;
+            }
+            CardBatchWriter.Resolution resolution = write.resolutions().get(next++);
+            if (resolution.outcome() == CardBatchWriter.Outcome.DUPLICATE) {
+                results.add(BulkImportResult.rejected(record.line(), "Duplicate PAN"));
+            } else if (resolution.outcome() == CardBatchWriter.Outcome.FAILED) {
+                results.add(BulkImportResult.failed(record.line(), write.error()));
+            } else if (resolution.outcome() == CardBatchWriter.Outcome.UPDATED) {
+                results.add(BulkImportResult.updated(record.line(), resolution.card().getId(), record.maskedPan()));
+            } else {
+                results.add(BulkImportResult.created(record.line(), resolution.card().getId(), record.maskedPan()));
+            }
+        }
+        return results;
+    }
+
+    private PreparedRecord prepare(PendingRecord pending) {
+        CardRequest request;
+        try {
+            request = requestReader.readValue(pending.json());
+        } catch (JsonProcessingException e) {
+            // Never echo the parser message, it may contain the PAN
+            return PreparedRecord.rejected(pending.line(), "Malformed JSON record");
+        }
+        if (request == null) {
+            return PreparedRecord.rejected(pending.line(), "Empty record");
+        }
+
+        // Wiped on every path, including records rejected by validation
+        try (SecurePan pan = request.getPan()) {
+            Set<ConstraintViolation<CardRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+                return PreparedRecord.rejected(pending.line(), error);
+            }
+
+            Card card = cardService.prepareCard(request);
+            return new PreparedRecord(pending.line(), card,
+                encryptionService.maskPan(card.getPanLength(), card.getLastFourDigits()), null);
+        } catch (IllegalArgumentException e) {
+            return PreparedRecord.rejected(pending.line(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error preparing bulk import record on line {}", pending.line(), e);
+            return PreparedRecord.rejected(pending.line(), "Error preparing card");
+        }
+    }
+
+    private record PendingRecord(int line, String json) {}
+
+    private record PreparedRecord(int line, Card card, String maskedPan, String error) {
+        static PreparedRecord rejected(int line, String error) {
+            return new PreparedRecord(line, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardEvent;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Writes a batch of prepared cards in one transaction, applying the duplicate policy to each card
+// under the PANs' lock stripes, so a concurrent create of the same PAN cannot slip in between the
+// check and the insert. Shared by bulk import and the asynchronous ingestion workers.
+@Component
+public class CardBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardBatchWriter.class);
+    private static final HexFormat HEX = HexFormat.of();
+
+    public enum Outcome {
+        CREATED, UPDATED, DUPLICATE, FAILED
+    }
+
+    // card is the row that was written (the existing card for an update), null for a duplicate or failure
+    public record Resolution(Outcome outcome, Card card) {}
+
+    // One resolution per input card, in order; error is set when a transaction failed. Cards of the failed
+    // transaction are FAILED; with sharding, cards on other shards may still have been written
+    public record BatchWrite(List<Resolution> resolutions, String error) {}
+
+    private final CardRepository cardRepository;
+    private final PanLookupCache panLookupCache;
+    private final DuplicatePanDetector duplicatePanDetector;
+    private final TokenizationService tokenizationService;
+    private final LastFourIndex lastFourIndex;
+    private final CardEventOutbox cardEventOutbox;
+    private final CardShards cardShards;
+
+    public CardBatchWriter(CardRepository cardRepository,
+                           PanLookupCache panLookupCache,
+                           DuplicatePanDetector duplicatePanDetector,
+                           TokenizationService tokenizationService,
+                           LastFourIndex lastFourIndex,
+                           CardEventOutbox cardEventOutbox,
+                           CardShards cardShards) {
+        this.cardRepository = cardRepository;
+        this.panLookupCache = panLookupCache;
+        this.duplicatePanDetector = duplicatePanDetector;
+        this.tokenizationService = tokenizationService;
+        this.lastFourIndex = lastFourIndex;
+        this.cardEventOutbox = cardEventOutbox;
+        this.cardShards = cardShards;
+    }
+
+    public BatchWrite write(List<Card> cards) {
+        List<byte[]> panHashes = cards.stream()
+            .map(Card::getPanHash)
+            .toList();
+        BatchWrite write = duplicatePanDetector.withLock(panHashes, () -> resolveAndSave(cards));
+        panHashes.forEach(panLookupCache::invalidate);
+        return write;
+    }
+
+    // Private helper methods
+
+    private BatchWrite resolveAndSave(List<Card> cards) {
+        // One transaction per shard, so without sharding the batch commits or fails as a whole. A PAN
+        // always maps to the same shard, so each shard resolves its own duplicates
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < cards.size(); i++) {
+            byShard.computeIfAbsent(cardShards.writeShard(cards.get(i).getPanHash()), shard -> new ArrayList<>())
+                .add(i);
+        }
+        List<Resolution> resolutions = new ArrayList<>(Collections.nCopies(cards.size(), null));
+        String writeError = null;
+        for (Map.Entry<Integer, List<Integer>> shard : byShard.entrySet()) {
+            try {
+                // The duplicate check reads the database, so it fails (and is retried) like the write itself
+                resolve(cards, shard.getValue(), resolutions);
+                List<Resolution> written = shard.getValue().stream()
+                    .map(resolutions::get)
+                    .filter(resolution -> resolution.outcome() != Outcome.DUPLICATE)
+                    .toList();
+                if (written.isEmpty()) {
+                    continue;
+                }
+                Set<Card> toSave = Collections.newSetFromMap(new IdentityHashMap<>());
+                written.forEach(resolution -> toSave.add(resolution.card()));
+                List<Card> created = written.stream()
+                    .filter(resolution -> resolution.outcome() == Outcome.CREATED)
+                    .map(Resolution::card)
+                    .toList();
+                tokenizationService.withUniqueTokens(created, () -> cardShards.inTransaction(shard.getKey(), false, () -> {
+                    cardRepository.saveAll(toSave);
+                    cardEventOutbox.append(events(written));
+                    return null;
+                }));
+                toSave.forEach(card -> {
+                    duplicatePanDetector.recordStored(card.getPanHash());
+                    tokenizationService.register(card);
+                    lastFourIndex.recordStored(card);
+                });
+            } catch (RuntimeException e) {
+                logger.error("Batch write of {} cards failed: {}", shard.getValue().size(), e.getMessage(), e);
+                for (int index : shard.getValue()) {
+                    Resolution resolution = resolutions.get(index);
+                    if (resolution != null && resolution.outcome() == Outcome.DUPLICATE) {
+                        continue;
+                    }
+                    // Ids assigned by the rolled-back persist must not survive, or a retry would merge instead of insert
+                    if (resolution != null && resolution.outcome() == Outcome.CREATED) {
+                        resolution.card().setId(null);
+                    }
+                    resolutions.set(index, new Resolution(Outcome.FAILED, null));
+                }
+                writeError = "Batch write failed";
+            }
+        }
+        return new BatchWrite(resolutions, writeError);
+    }
+
+    // Cards are resolved in order, so a PAN repeated within the batch sees the earlier card
+    private void resolve(List<Card> cards, List<Integer> indexes, List<Resolution> resolutions) {
+        DuplicatePolicy policy = duplicatePanDetector.policy();
+        Map<String, Card> batchCards = new HashMap<>();
+
+        for (int index : indexes) {
+            Card card = cards.get(index);
+            if (policy == DuplicatePolicy.ALLOW) {
+                resolutions.set(index, new Resolution(Outcome.CREATED, card));
+                continue;
+            }
+
+            String key = HEX.formatHex(card.getPanHash());
+            Card target = batchCards.get(key);
+            if (target == null) {
+                target = duplicatePanDetector.findExisting(card.getPanHash()).orElse(null);
+            }
+            if (target == null) {
+                batchCards.put(key, card);
+                resolutions.set(index, new Resolution(Outcome.CREATED, card));
+            } else if (policy == DuplicatePolicy.REJECT) {
+                resolutions.set(index, new Resolution(Outcome.DUPLICATE, null));
+            } else {
+                target.setCardholderName(card.getCardholderName());
+                batchCards.put(key, target);
+                resolutions.set(index, new Resolution(Outcome.UPDATED, target));
+            }
+        }
+    }
+
+    // One event per write in input order; a card updated twice in the batch gets two events
+    private static List<CardEventOutbox.Entry> events(List<Resolution> resolutions) {
+        return resolutions.stream()
+            .map(resolution -> new CardEventOutbox.Entry(resolution.outcome() == Outcome.CREATED
+                ? CardEvent.Type.CREATED
+                : CardEvent.Type.UPDATED, resolution.card()))
+            .toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardEvent;
+import com.gpayments.cardmanagement.model.Card;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Records card events in the card_outbox table. Must be called inside the transaction that writes the
+// cards, so an event exists if and only if its card change committed; CardEventRelay publishes them.
+@Component
+public class CardEventOutbox {
+
+    private static final String INSERT =
+        "INSERT INTO card_outbox (event_type, card_id, cardholder_name, masked_pan, pan_token, card_created_time, "
+            + "occurred_time) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    public record Entry(CardEvent.Type type, Card card) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionService encryptionService;
+    private final boolean enabled;
+
+    public CardEventOutbox(JdbcTemplate jdbcTemplate,
+                           EncryptionService encryptionService,
+                           @Value("${app.events.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionService = encryptionService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(CardEvent.Type type, Card card) {
+        append(List.of(new Entry(type, card)));
+    }
+
+    // Entries are numbered in list order, so events for the same card keep their order
+    public void append(List<Entry> entries) {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Card events must be written in the card's transaction");
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, entry) -> {
+            Card card = entry.card();
+            statement.setString(1, entry.type().name());
+            statement.setLong(2, card.getId());
+            statement.setString(3, card.getCardholderName());
+            statement.setString(4, card.getPanLength() == null
+                ? null
+                : encryptionService.maskPan(card.getPanLength(), card.getLastFourDigits()));
+            statement.setString(5, card.getPanToken());
+            statement.setTimestamp(6, card.getCreatedTime() == null ? null : Timestamp.valueOf(card.getCreatedTime()));
+            statement.setTimestamp(7, now);
+        });
+    }
+}
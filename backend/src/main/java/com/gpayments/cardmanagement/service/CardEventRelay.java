@@ -0,0 +1,134 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Drains card_outbox to the event sink in id order, a batch per transaction: the batch is locked, published
+// and deleted together, so a failed publish or a crash leaves it in place to be sent again. The row locks
+// also keep relays on other instances from publishing the same batch or overtaking it. Events are written
+// on their card's shard, so with shards every shard's outbox is drained, each in its own id order.
+@Component
+public class CardEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardEventRelay.class);
+
+    private static final String BATCH_QUERY =
+        "SELECT id, event_type, card_id, cardholder_name, masked_pan, pan_token, card_created_time, occurred_time "
+            + "FROM card_outbox ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String DELETE = "DELETE FROM card_outbox WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardShards cardShards;
+    private final CardEventSink sink;
+    private final boolean enabled;
+    private final int batchSize;
+    private final ReentrantLock relayLock = new ReentrantLock();
+    private final Counter published;
+    private final Counter failures;
+    private final Timer publishTimer;
+
+    public CardEventRelay(JdbcTemplate jdbcTemplate,
+                          CardShards cardShards,
+                          CardEventSink sink,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.events.enabled:true}") boolean enabled,
+                          @Value("${app.events.relay.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.events.relay.batch-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardShards = cardShards;
+        this.sink = sink;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.published = Counter.builder("card.events.published")
+            .description("Card events handed to the event sink")
+            .register(meterRegistry);
+        this.failures = Counter.builder("card.events.relay.failures")
+            .description("Outbox batches that could not be published and will be retried")
+            .register(meterRegistry);
+        this.publishTimer = Timer.builder("card.events.publish")
+            .description("Time the event sink takes to accept one batch")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.relay.interval:PT1S}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            relayPending();
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.warn("Card event relay failed, retrying next run: {}", e.getMessage());
+        }
+    }
+
+    // Publishes until the outbox is empty and returns the number of events sent
+    public long relayPending() {
+        relayLock.lock();
+        try {
+            long total = 0;
+            for (int shard = 0; shard < cardShards.count(); shard++) {
+                while (true) {
+                    int count = cardShards.inTransaction(shard, false, this::relayBatch);
+                    total += count;
+                    if (count < batchSize) {
+                        break;
+                    }
+                }
+            }
+            return total;
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    // Private helper methods
+    private int relayBatch() {
+        List<CardEvent> events = jdbcTemplate.query(BATCH_QUERY, (resultSet, rowNum) -> new CardEvent(
+            resultSet.getLong("id"),
+            CardEvent.Type.valueOf(resultSet.getString("event_type")),
+            resultSet.getLong("card_id"),
+            resultSet.getString("cardholder_name"),
+            resultSet.getString("masked_pan"),
+            resultSet.getString("pan_token"),
+            toLocalDateTime(resultSet.getTimestamp("card_created_time")),
+            toLocalDateTime(resultSet.getTimestamp("occurred_time"))), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            sink.publish(events);
+            publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not publish card events", e);
+        }
+        jdbcTemplate.batchUpdate(DELETE, events, events.size(),
+            (statement, event) -> statement.setLong(1, event.eventId()));
+        published.increment(events.size());
+        return events.size();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
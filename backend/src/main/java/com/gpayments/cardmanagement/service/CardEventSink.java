@@ -0,0 +1,14 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+// Destination of the card event stream. Batches arrive in outbox order and are only removed from the
+// outbox once publish returns, so a throwing sink gets the same batch again on the next relay run.
+// A Kafka producer would key each record by cardId to keep one card's events in one partition.
+public interface CardEventSink {
+
+    void publish(List<CardEvent> events) throws IOException;
+}
@@ -0,0 +1,159 @@
+package com.gpayments.cardmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gpayments.cardmanagement.dto.CardExportRow;
+import com.gpayments.cardmanagement.dto.CardSummary;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Full-table export of masked cards for reconciliation. Rows come from a forward-only cursor in id
+// order and are written as they are read, so memory stays constant however many cards there are.
+// Nothing is decrypted: the masked PAN is built from pan_length and last_four_digits. With shards, rows
+// are read a page per shard at a time and merged into one id order.
+@Service
+public class CardExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final int SHARD_PAGE_SIZE = 1000;
+
+    static final String CSV_HEADER = "id,cardholder_name,masked_pan,last_four_digits,pan_length,token,created_time";
+
+    private final CardRepository cardRepository;
+    private final CardShards cardShards;
+    private final EncryptionService encryptionService;
+    private final ObjectWriter ndjsonWriter;
+
+    public CardExportService(CardRepository cardRepository,
+                             CardShards cardShards,
+                             EncryptionService encryptionService,
+                             ObjectMapper objectMapper) {
+        this.cardRepository = cardRepository;
+        this.cardShards = cardShards;
+        this.encryptionService = encryptionService;
+        this.ndjsonWriter = objectMapper.writerFor(CardExportRow.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .withRootValueSeparator("\n");
+    }
+
+    // Writes cards with id > afterId (at most limit of them when limit > 0) and returns how many were
+    // written. Clients resume an interrupted export by passing the last id they received as afterId.
+    @Transactional(readOnly = true)
+    public long export(long afterId, long limit, Format format, OutputStream out) throws IOException {
+        try (Stream<CardSummary> cards = cardShards.isSharded()
+                ? streamShardedSummariesAfterId(afterId)
+                : cardRepository.streamSummariesAfterId(afterId)) {
+            Iterator<CardSummary> rows = (limit > 0 ? cards.limit(limit) : cards).iterator();
+            return format == Format.CSV ? writeCsv(rows, out) : writeNdjson(rows, out);
+        }
+    }
+
+    // Private helper methods
+    private Stream<CardSummary> streamShardedSummariesAfterId(long afterId) {
+        // Each shard returns its next page; the lowest page size ids of all shards are next overall
+        return Stream.iterate(summaryPage(afterId), page -> !page.isEmpty(),
+                page -> page.size() < SHARD_PAGE_SIZE ? List.of() : summaryPage(page.get(page.size() - 1).id()))
+            .flatMap(List::stream);
+    }
+
+    private List<CardSummary> summaryPage(long afterId) {
+        List<CardSummary> merged = cardShards.readAll(
+            () -> cardRepository.findSummaryPageAfterId(afterId, PageRequest.ofSize(SHARD_PAGE_SIZE)),
+            CardSummary::id, Comparator.comparing(CardSummary::id));
+        return merged.size() > SHARD_PAGE_SIZE ? merged.subList(0, SHARD_PAGE_SIZE) : merged;
+    }
+
+    private long writeNdjson(Iterator<CardSummary> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+            while (rows.hasNext()) {
+                writer.write(toRow(rows.next()));
+                count++;
+            }
+            // The separator only goes between values, so end the last line too
+            if (count > 0) {
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<CardSummary> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        StringBuilder line = new StringBuilder(128);
+        while (rows.hasNext()) {
+            CardExportRow row = toRow(rows.next());
+            line.setLength(0);
+            line.append(row.id()).append(',');
+            appendCsvField(line, row.cardholderName());
+            line.append(',').append(nullToEmpty(row.maskedPan()))
+                .append(',').append(nullToEmpty(row.lastFourDigits()))
+                .append(',').append(row.panLength() == null ? "" : row.panLength())
+                .append(',').append(nullToEmpty(row.token()))
+                .append(',').append(row.createdTime() == null ? "" : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.createdTime()))
+                .append('\n');
+            writer.append(line);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private CardExportRow toRow(CardSummary card) {
+        String maskedPan = card.panLength() == null
+            ? null
+            : encryptionService.maskPan(card.panLength(), card.lastFourDigits());
+        return new CardExportRow(card.id(), card.cardholderName(), maskedPan, card.lastFourDigits(),
+            card.panLength(), card.panToken(), card.createdTime());
+    }
+
+    // RFC 4180 quoting. Values a spreadsheet would evaluate as a formula get a leading quote.
+    static void appendCsvField(StringBuilder line, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        if (formula) {
+            line.append('\'');
+        }
+        line.append(value.replace("\"", "\"\""));
+        line.append('"');
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,355 @@
+package com.gpayments.cardmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.dto.IngestionStatusResponse;
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.exception.IngestionBacklogException;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Write-behind card creation (app.ingestion.mode=async). The request thread validates, encrypts and
+// hashes the card, appends it to the local journal and hands it to a bounded queue; worker threads
+// drain the queue in batches and store each batch in one transaction. The journal is replayed at
+// startup, so an accepted card survives a crash between acceptance and commit. Cards carry their tracking
+// ID in a unique column, so a replayed card that was committed before the crash is found, not stored again.
+@Service
+public class CardIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardIngestionService.class);
+
+    private static final long POLL_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+
+    private record Task(UUID trackingId, Card card) {}
+
+    private final CardService cardService;
+    private final CardBatchWriter cardBatchWriter;
+    private final CardRepository cardRepository;
+    private final CardShards cardShards;
+    private final EncryptionService encryptionService;
+    private final boolean enabled;
+    private final int workerCount;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Path journalPath;
+    private final boolean journalFsync;
+    private final long compactThresholdBytes;
+    private final BlockingQueue<Task> queue;
+    private final Cache<UUID, IngestionStatusResponse> statuses;
+    // Accepted but not yet completed; the journal may only be emptied when this is zero
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter backlogRejections;
+    private final List<Thread> workers = new ArrayList<>();
+    private IngestionJournal journal;
+    private volatile boolean running;
+
+    public CardIngestionService(CardService cardService,
+                                CardBatchWriter cardBatchWriter,
+                                CardRepository cardRepository,
+                                CardShards cardShards,
+                                EncryptionService encryptionService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.ingestion.mode:sync}") String mode,
+                                @Value("${app.ingestion.queue-capacity:10000}") int queueCapacity,
+                                @Value("${app.ingestion.workers:2}") int workerCount,
+                                @Value("${app.ingestion.batch-size:500}") int batchSize,
+                                @Value("${app.ingestion.max-attempts:5}") int maxAttempts,
+                                @Value("${app.ingestion.status-retention:PT1H}") Duration statusRetention,
+                                @Value("${app.ingestion.status-maximum-size:1000000}") long statusMaximumSize,
+                                @Value("${app.ingestion.journal.path:./data/ingestion.journal}") String journalPath,
+                                @Value("${app.ingestion.journal.fsync:true}") boolean journalFsync,
+                                @Value("${app.ingestion.journal.compact-threshold-bytes:67108864}") long compactThresholdBytes) {
+        if (!mode.equals("sync") && !mode.equals("async")) {
+            throw new IllegalArgumentException("app.ingestion.mode must be sync or async");
+        }
+        if (queueCapacity < 1 || workerCount < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Ingestion queue capacity, workers, batch size and attempts must be positive");
+        }
+        this.cardService = cardService;
+        this.cardBatchWriter = cardBatchWriter;
+        this.cardRepository = cardRepository;
+        this.cardShards = cardShards;
+        this.encryptionService = encryptionService;
+        this.enabled = mode.equals("async");
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.journalPath = Path.of(journalPath);
+        this.journalFsync = journalFsync;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.statuses = Caffeine.newBuilder()
+            .maximumSize(statusMaximumSize)
+            .expireAfterWrite(statusRetention)
+            .build();
+        this.backlogRejections = Counter.builder("card.ingestion.rejected")
+            .description("Cards refused because the ingestion queue was full")
+            .register(meterRegistry);
+        Gauge.builder("card.ingestion.queue.size", queue, BlockingQueue::size)
+            .description("Cards waiting for an ingestion worker")
+            .register(meterRegistry);
+        Gauge.builder("card.ingestion.pending", pending, AtomicInteger::get)
+            .description("Cards accepted but not yet stored")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new IngestionJournal(journalPath, journalFsync);
+        List<IngestionJournal.Entry> recovered = journal.recover();
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("card-ingestion-" + i).start(this::drain));
+        }
+
+        // Counted up front, so a worker finishing the first replayed card cannot compact the journal
+        // while later entries are still only in memory
+        pending.addAndGet(recovered.size());
+        List<UUID> alreadyStored = new ArrayList<>();
+        // Replayed cards may exceed the queue capacity, so these puts wait for the workers
+        for (IngestionJournal.Entry entry : recovered) {
+            Card card = entry.card();
+            IngestionStatusResponse status = IngestionStatusResponse.queued(entry.trackingId(),
+                encryptionService.maskPan(card.getPanLength(), card.getLastFourDigits()), LocalDateTime.now());
+            // Committed before the crash, only the completion record was lost
+            Optional<Long> storedId = findStored(card);
+            if (storedId.isPresent()) {
+                statuses.put(entry.trackingId(), status.completed(IngestionStatusResponse.Status.CREATED, storedId.get(), null));
+                alreadyStored.add(entry.trackingId());
+                continue;
+            }
+            statuses.put(entry.trackingId(), status);
+            try {
+                queue.put(new Task(entry.trackingId(), card));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CardManagementException("Interrupted while replaying the ingestion journal", e);
+            }
+        }
+        if (!alreadyStored.isEmpty()) {
+            complete(alreadyStored);
+        }
+        if (!recovered.isEmpty()) {
+            logger.info("Replaying {} journaled cards from {} ({} already stored)",
+                recovered.size(), journalPath, alreadyStored.size());
+        }
+    }
+
+    // Returns once the card is durably journaled; storing it happens on a worker thread
+    public IngestionStatusResponse submit(CardRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("Asynchronous ingestion is disabled");
+        }
+        Card card;
+        try (SecurePan pan = request.getPan()) {
+            // Cheap early refusal before spending time on encryption
+            if (queue.remainingCapacity() == 0) {
+                backlogRejections.increment();
+                throw new IngestionBacklogException("Ingestion queue is full");
+            }
+            card = cardService.prepareCard(request);
+        }
+        UUID trackingId = UUID.randomUUID();
+        card.setIngestionId(trackingId);
+        IngestionStatusResponse status = IngestionStatusResponse.queued(trackingId,
+            encryptionService.maskPan(card.getPanLength(), card.getLastFourDigits()), LocalDateTime.now());
+
+        pending.incrementAndGet();
+        try {
+            journal.appendAccepted(trackingId, card);
+        } catch (IOException e) {
+            pending.decrementAndGet();
+            throw new CardManagementException("Could not journal card for ingestion", e);
+        }
+        // Recorded before the hand-off, so a fast worker's result cannot be overwritten with QUEUED
+        statuses.put(trackingId, status);
+        if (!queue.offer(new Task(trackingId, card))) {
+            // Lost the race for the last slot: cancel the journal entry so it is not replayed
+            statuses.invalidate(trackingId);
+            complete(List.of(trackingId));
+            backlogRejections.increment();
+            throw new IngestionBacklogException("Ingestion queue is full");
+        }
+        return status;
+    }
+
+    public Optional<IngestionStatusResponse> status(UUID trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    // Workers finish their current batch; anything still queued stays in the journal for the next start
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        journal.close();
+    }
+
+    // Private helper methods
+    private void drain() {
+        List<Task> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Task first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                store(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Ingestion worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void store(List<Task> batch) throws InterruptedException {
+        CardBatchWriter.BatchWrite write = cardBatchWriter.write(cards(batch));
+        // Transient failures (database unavailable, lock timeouts) are retried; the queue backs up meanwhile,
+        // and new submissions are refused once it is full. Cards already written (on other shards) are
+        // completed first, so only the failed ones are written again
+        for (int attempt = 1; write.error() != null && attempt < maxAttempts && running; attempt++) {
+            batch = completeWritten(batch, write);
+            Thread.sleep(Math.min(MAX_BACKOFF_MILLIS, 100L << attempt));
+            write = cardBatchWriter.write(cards(batch));
+        }
+        List<Task> failed = completeWritten(batch, write);
+        if (failed.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            // Shutting down: leave the failed cards in the journal rather than report them as failed
+            return;
+        }
+        if (failed.size() > 1) {
+            // Isolate the card that keeps failing, so it does not take the rest of the batch with it
+            for (Task task : failed) {
+                store(List.of(task));
+            }
+            return;
+        }
+
+        List<UUID> trackingIds = new ArrayList<>(failed.size());
+        for (Task task : failed) {
+            trackingIds.add(task.trackingId());
+            IngestionStatusResponse status = statuses.getIfPresent(task.trackingId());
+            if (status != null) {
+                statuses.put(task.trackingId(), status.completed(IngestionStatusResponse.Status.FAILED, null, write.error()));
+            }
+        }
+        complete(trackingIds);
+    }
+
+    // Records the outcome of every card that did not fail and returns the tasks of those that did
+    private List<Task> completeWritten(List<Task> batch, CardBatchWriter.BatchWrite write) {
+        List<Task> failed = new ArrayList<>();
+        List<UUID> trackingIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CardBatchWriter.Resolution resolution = write.resolutions().get(i);
+            if (resolution.outcome() == CardBatchWriter.Outcome.FAILED) {
+                failed.add(batch.get(i));
+                continue;
+            }
+            UUID trackingId = batch.get(i).trackingId();
+            trackingIds.add(trackingId);
+            IngestionStatusResponse status = statuses.getIfPresent(trackingId);
+            if (status != null) {
+                statuses.put(trackingId, completed(status, resolution));
+            }
+        }
+        if (!trackingIds.isEmpty()) {
+            complete(trackingIds);
+        }
+        return failed;
+    }
+
+    private Optional<Long> findStored(Card card) {
+        return cardShards.readByPanHash(card.getPanHash(),
+                () -> cardRepository.findIdByIngestionId(card.getIngestionId()).stream().toList(),
+                id -> id, Comparator.naturalOrder())
+            .stream()
+            .findFirst();
+    }
+
+    private static List<Card> cards(List<Task> batch) {
+        return batch.stream()
+            .map(Task::card)
+            .toList();
+    }
+
+    private static IngestionStatusResponse completed(IngestionStatusResponse status, CardBatchWriter.Resolution resolution) {
+        if (resolution.outcome() == CardBatchWriter.Outcome.DUPLICATE) {
+            return status.completed(IngestionStatusResponse.Status.REJECTED, null, "Duplicate PAN");
+        }
+        IngestionStatusResponse.Status outcome = resolution.outcome() == CardBatchWriter.Outcome.UPDATED
+            ? IngestionStatusResponse.Status.UPDATED
+            : IngestionStatusResponse.Status.CREATED;
+        return status.completed(outcome, resolution.card().getId(), null);
+    }
+
+    private void complete(List<UUID> trackingIds) {
+        try {
+            journal.appendCompleted(trackingIds);
+        } catch (IOException e) {
+            // The cards are stored; the worst case is a replay that finds them by tracking ID
+            logger.warn("Could not journal completion of {} cards: {}", trackingIds.size(), e.getMessage());
+        }
+        pending.addAndGet(-trackingIds.size());
+        try {
+            if (journal.truncateIfIdle(compactThresholdBytes, () -> pending.get() == 0)) {
+                logger.debug("Ingestion journal {} compacted", journalPath);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not compact ingestion journal {}: {}", journalPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.gpayments.cardmanagement.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Pipeline instrumentation. Stages are observations, so each one yields a card.stage timer
+// and, when tracing is enabled, a span nested under the HTTP request span
+@Component
+public class CardMetrics {
+
+    static final String STAGE_OBSERVATION = "card.stage";
+    static final String SEARCH_RESULTS = "card.search.results";
+    static final String VALIDATION_FAILURES = "card.validation.failures";
+    static final String DUPLICATE_CHECKS = "card.duplicate.checks";
+
+    public enum Stage {
+        VALIDATION("validation"),
+        HASHING("hashing"),
+        ENCRYPTION("encryption"),
+        DECRYPTION("decryption"),
+        DB_SAVE("db.save"),
+        DB_LOOKUP("db.lookup");
+
+        private final String tagValue;
+
+        Stage(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    public enum SearchType {
+        PAN("pan"),
+        LAST_FOUR("last_four");
+
+        private final String tagValue;
+
+        SearchType(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary panSearchResults;
+    private final DistributionSummary lastFourSearchResults;
+
+    public CardMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.panSearchResults = searchResults(SearchType.PAN);
+        this.lastFourSearchResults = searchResults(SearchType.LAST_FOUR);
+    }
+
+    public <T> T observe(Stage stage, Supplier<T> action) {
+        return Observation.createNotStarted(STAGE_OBSERVATION, observationRegistry)
+            .contextualName("card " + stage.tagValue)
+            .lowCardinalityKeyValue("stage", stage.tagValue)
+            .observe(action);
+    }
+
+    public void observe(Stage stage, Runnable action) {
+        observe(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void recordSearchResults(SearchType type, int count) {
+        (type == SearchType.PAN ? panSearchResults : lastFourSearchResults).record(count);
+    }
+
+    // Reasons must come from a small fixed set (field + constraint), never from user input
+    public void recordValidationFailure(String reason) {
+        Counter.builder(VALIDATION_FAILURES)
+            .description("Rejected card requests")
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    // filtered = answered by the Bloom filter alone; false_positive and duplicate needed a DB lookup
+    public void recordDuplicateCheck(String result) {
+        Counter.builder(DUPLICATE_CHECKS)
+            .description("Duplicate PAN checks by outcome")
+            .tag("result", result)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private DistributionSummary searchResults(SearchType type) {
+        return DistributionSummary.builder(SEARCH_RESULTS)
+            .description("Cards returned per search")
+            .baseUnit("cards")
+            .tag("search", type.tagValue)
+            .register(meterRegistry);
+    }
+}
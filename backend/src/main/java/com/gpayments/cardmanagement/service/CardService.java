@@ -1,92 +1,340 @@
 package com.gpayments.cardmanagement.service;
 
+import com.gpayments.cardmanagement.dto.CardEvent;
+import com.gpayments.cardmanagement.dto.CardPage;
 import com.gpayments.cardmanagement.dto.CardRequest;
 import com.gpayments.cardmanagement.dto.CardResponse;
+import com.gpayments.cardmanagement.dto.CardSummary;
+import com.gpayments.cardmanagement.exception.DuplicateCardException;
 import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.model.SecurePan;
 import com.gpayments.cardmanagement.repository.CardRepository;
+import com.gpayments.cardmanagement.service.CardMetrics.SearchType;
+import com.gpayments.cardmanagement.service.CardMetrics.Stage;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CardService {
     
+    // Bind parameters per IN list, well inside every supported database's limit
+    private static final int ID_CHUNK_SIZE = 1000;
+    // Rows per shard query when a streaming search has to merge shards
+    private static final int SHARD_PAGE_SIZE = 500;
+    private static final Comparator<CardSummary> SEARCH_ORDER =
+        Comparator.comparing(CardSummary::createdTime).thenComparing(CardSummary::id);
+    
     private final CardRepository cardRepository;
     private final EncryptionService encryptionService;
+    private final PanHashService panHashService;
     private final PanValidationService panValidationService;
+    private final CardMetrics metrics;
+    private final PanLookupCache panLookupCache;
+    private final DuplicatePanDetector duplicatePanDetector;
+    private final TokenizationService tokenizationService;
+    private final ParallelDecryptor parallelDecryptor;
+    private final LastFourIndex lastFourIndex;
+    private final CardEventOutbox cardEventOutbox;
+    private final CardShards cardShards;
     
     public CardService(CardRepository cardRepository, 
                       EncryptionService encryptionService, 
-                      PanValidationService panValidationService) {
+                      PanHashService panHashService,
+                      PanValidationService panValidationService,
+                      CardMetrics metrics,
+                      PanLookupCache panLookupCache,
+                      DuplicatePanDetector duplicatePanDetector,
+                      TokenizationService tokenizationService,
+                      ParallelDecryptor parallelDecryptor,
+                      LastFourIndex lastFourIndex,
+                      CardEventOutbox cardEventOutbox,
+                      CardShards cardShards) {
         this.cardRepository = cardRepository;
         this.encryptionService = encryptionService;
+        this.panHashService = panHashService;
         this.panValidationService = panValidationService;
+        this.metrics = metrics;
+        this.panLookupCache = panLookupCache;
+        this.duplicatePanDetector = duplicatePanDetector;
+        this.tokenizationService = tokenizationService;
+        this.parallelDecryptor = parallelDecryptor;
+        this.lastFourIndex = lastFourIndex;
+        this.cardEventOutbox = cardEventOutbox;
+        this.cardShards = cardShards;
     }
     
+    // The request's PAN is wiped before this returns, successfully or not
     public CardResponse createCard(CardRequest request) {
-        validateRequest(request);
-        
-        Card card = createCardEntity(request);
-        cardRepository.save(card);
-        
-        return createCardResponse(card, request.getPan());
+        try (SecurePan pan = request == null ? null : request.getPan()) {
+            Card card = prepareCard(request);
+            Card stored = duplicatePanDetector.withLock(List.of(card.getPanHash()), () -> store(card));
+            panLookupCache.invalidate(card.getPanHash());
+            
+            return createCardResponse(stored, pan);
+        }
+    }
+    
+    // Validates and encrypts a request into an unsaved entity (shared with bulk import). Reads the
+    // PAN in place without copying it; wiping it afterwards is up to the caller
+    Card prepareCard(CardRequest request) {
+        metrics.observe(Stage.VALIDATION, () -> validateRequest(request));
+        return createCardEntity(request);
     }
     
+    @Transactional(readOnly = true)
     public List<CardResponse> searchByPan(String pan) {
         try {
-            String panHash = encryptionService.generateHash(pan);
-            List<Card> cards = cardRepository.findByPanHash(panHash);
+            byte[] panHash = hash(pan);
+            List<CardResponse> cached = panLookupCache.get(panHash);
+            if (cached != null) {
+                metrics.recordSearchResults(SearchType.PAN, cached.size());
+                return cached;
+            }
             
-            return cards.stream()
+            long version = panLookupCache.version(panHash);
+            List<CardSummary> cards = metrics.observe(Stage.DB_LOOKUP, () -> cardShards.readByPanHash(panHash,
+                () -> cardRepository.findSummariesByPanHash(panHash), CardSummary::id, SEARCH_ORDER));
+            metrics.recordSearchResults(SearchType.PAN, cards.size());
+            
+            List<CardResponse> responses = cards.stream()
                 .map(card -> createCardResponse(card, pan))
                 .collect(Collectors.toList());
+            panLookupCache.put(panHash, responses, version);
+            return responses;
         } catch (Exception e) {
             throw new RuntimeException("Error searching by PAN", e);
         }
     }
     
+    @Transactional(readOnly = true)
     public List<CardResponse> searchByLastFourDigits(String lastFourDigits) {
         try {
-            List<Card> cards = cardRepository.findByLastFourDigits(lastFourDigits);
+            List<CardSummary> cards = metrics.observe(Stage.DB_LOOKUP, () -> findSummariesByLastFourDigits(lastFourDigits));
+            metrics.recordSearchResults(SearchType.LAST_FOUR, cards.size());
             
-            return cards.stream()
-                .map(this::createCardResponseFromEncrypted)
-                .collect(Collectors.toList());
+            return createCardResponsesFromStored(cards);
         } catch (Exception e) {
             throw new RuntimeException("Error searching by last four digits", e);
         }
     }
     
+    @Transactional(readOnly = true)
+    public CardPage searchByPanPage(String pan, String cursor, int limit) {
+        SearchCursor after = SearchCursor.decode(cursor);
+        byte[] panHash = hash(pan);
+        PageRequest page = PageRequest.ofSize(limit + 1);
+        
+        List<CardSummary> cards = metrics.observe(Stage.DB_LOOKUP, () -> cardShards.readByPanHash(panHash, () -> after == null
+            ? cardRepository.findSummaryPageByPanHash(panHash, page)
+            : cardRepository.findSummaryPageByPanHashAfter(panHash, after.createdTime(), after.id(), page),
+            CardSummary::id, SEARCH_ORDER));
+        CardPage result = toPage(cards, limit, pageCards -> pageCards.stream()
+            .map(card -> createCardResponse(card, pan))
+            .collect(Collectors.toList()));
+        metrics.recordSearchResults(SearchType.PAN, result.getCards().size());
+        return result;
+    }
+    
+    @Transactional(readOnly = true)
+    public CardPage searchByLastFourDigitsPage(String lastFourDigits, String cursor, int limit) {
+        SearchCursor after = SearchCursor.decode(cursor);
+        List<CardSummary> cards = metrics.observe(Stage.DB_LOOKUP,
+            () -> findSummaryPageByLastFourDigits(lastFourDigits, after, limit + 1));
+        CardPage result = toPage(cards, limit, this::createCardResponsesFromStored);
+        metrics.recordSearchResults(SearchType.LAST_FOUR, result.getCards().size());
+        return result;
+    }
+    
+    // Streaming variants hand each match to the sink as it is read. Rows are projections, not entities,
+    // so memory stays bounded by the JDBC fetch size rather than by the number of matches
+    @Transactional(readOnly = true)
+    public void streamByPan(String pan, Consumer<CardResponse> sink) {
+        if (cardShards.isSharded()) {
+            // One PAN's cards are few, so they are read in one go from the shard rather than streamed
+            List<CardResponse> cards = searchByPan(pan);
+            cards.forEach(sink);
+            return;
+        }
+        int[] count = {0};
+        try (Stream<CardSummary> cards = cardRepository.streamSummariesByPanHash(hash(pan))) {
+            cards.forEach(card -> {
+                sink.accept(createCardResponse(card, pan));
+                count[0]++;
+            });
+        }
+        metrics.recordSearchResults(SearchType.PAN, count[0]);
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamByLastFourDigits(String lastFourDigits, Consumer<CardResponse> sink) {
+        if (cardShards.isSharded()) {
+            streamShardedByLastFourDigits(lastFourDigits, sink);
+            return;
+        }
+        int[] count = {0};
+        try (Stream<CardSummary> cards = cardRepository.streamSummariesByLastFourDigits(lastFourDigits)) {
+            cards.forEach(card -> {
+                sink.accept(createCardResponsesFromStored(List.of(card)).get(0));
+                count[0]++;
+            });
+        }
+        metrics.recordSearchResults(SearchType.LAST_FOUR, count[0]);
+    }
+    
     // Private helper methods
+    // Applies the duplicate policy; callers hold the PAN's lock stripe
+    private Card store(Card card) {
+        DuplicatePolicy policy = duplicatePanDetector.policy();
+        if (policy != DuplicatePolicy.ALLOW) {
+            Optional<Card> existing = duplicatePanDetector.findExisting(card.getPanHash());
+            if (existing.isPresent()) {
+                if (policy == DuplicatePolicy.REJECT) {
+                    throw new DuplicateCardException("A card with this PAN already exists");
+                }
+                Card current = existing.get();
+                current.setCardholderName(card.getCardholderName());
+                return metrics.observe(Stage.DB_SAVE, () -> save(current, CardEvent.Type.UPDATED));
+            }
+        }
+        metrics.observe(Stage.DB_SAVE,
+            () -> tokenizationService.withUniqueTokens(List.of(card), () -> save(card, CardEvent.Type.CREATED)));
+        duplicatePanDetector.recordStored(card.getPanHash());
+        tokenizationService.register(card);
+        lastFourIndex.recordStored(card);
+        return card;
+    }
+    
+    // The card and its outbox event commit together, on the PAN's shard
+    private Card save(Card card, CardEvent.Type eventType) {
+        return cardShards.inTransaction(cardShards.writeShard(card.getPanHash()), false, () -> {
+            Card saved = cardRepository.save(card);
+            cardEventOutbox.append(eventType, saved);
+            return saved;
+        });
+    }
+    
+    // Candidates come from the in-memory index when it is ready, so the rows are fetched by primary key.
+    // Cards created since the index was last complete are read from the database as well
+    private List<CardSummary> findSummariesByLastFourDigits(String lastFourDigits) {
+        LocalDateTime completeBefore = lastFourIndex.completeBefore();
+        long[] ids = lastFourIndex.lookup(lastFourDigits);
+        if (ids == null || completeBefore == null) {
+            return cardShards.readAll(() -> cardRepository.findSummariesByLastFourDigits(lastFourDigits),
+                CardSummary::id, SEARCH_ORDER);
+        }
+        List<CardSummary> cards = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += ID_CHUNK_SIZE) {
+            int to = Math.min(ids.length, from + ID_CHUNK_SIZE);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(ids[i]);
+            }
+            cards.addAll(cardRepository.findSummariesByLastFourDigitsAndIdIn(lastFourDigits, chunk));
+        }
+        Set<Long> found = cards.stream().map(CardSummary::id).collect(Collectors.toCollection(HashSet::new));
+        for (CardSummary recent : cardRepository.findSummariesByLastFourDigitsCreatedSince(lastFourDigits, completeBefore)) {
+            if (found.add(recent.id())) {
+                cards.add(recent);
+            }
+        }
+        // Same order as the database search; chunks are each ordered, but not across chunks
+        cards.sort(SEARCH_ORDER);
+        return cards;
+    }
+    
+    // Each shard returns its first rows after the cursor, so the first rows of the merge are the page
+    private List<CardSummary> findSummaryPageByLastFourDigits(String lastFourDigits, SearchCursor after, int size) {
+        PageRequest page = PageRequest.ofSize(size);
+        List<CardSummary> cards = cardShards.readAll(() -> after == null
+            ? cardRepository.findSummaryPageByLastFourDigits(lastFourDigits, page)
+            : cardRepository.findSummaryPageByLastFourDigitsAfter(lastFourDigits, after.createdTime(), after.id(), page),
+            CardSummary::id, SEARCH_ORDER);
+        return cards.size() > size ? cards.subList(0, size) : cards;
+    }
+    
+    // Page by page, so memory stays bounded by shards x page size rather than by the number of matches
+    private void streamShardedByLastFourDigits(String lastFourDigits, Consumer<CardResponse> sink) {
+        int count = 0;
+        SearchCursor after = null;
+        while (true) {
+            List<CardSummary> cards = findSummaryPageByLastFourDigits(lastFourDigits, after, SHARD_PAGE_SIZE);
+            createCardResponsesFromStored(cards).forEach(sink);
+            count += cards.size();
+            if (cards.size() < SHARD_PAGE_SIZE) {
+                break;
+            }
+            CardSummary last = cards.get(cards.size() - 1);
+            after = new SearchCursor(last.createdTime(), last.id());
+        }
+        metrics.recordSearchResults(SearchType.LAST_FOUR, count);
+    }
+    
+    private byte[] hash(String pan) {
+        return metrics.observe(Stage.HASHING, () -> panHashService.hash(pan));
+    }
+    
+    // Repository pages are fetched with limit + 1 rows so we know whether another page exists
+    private CardPage toPage(List<CardSummary> cards, int limit, Function<List<CardSummary>, List<CardResponse>> mapper) {
+        boolean hasMore = cards.size() > limit;
+        List<CardSummary> pageCards = hasMore ? cards.subList(0, limit) : cards;
+        
+        String nextCursor = null;
+        if (hasMore) {
+            CardSummary last = pageCards.get(pageCards.size() - 1);
+            nextCursor = new SearchCursor(last.createdTime(), last.id()).encode();
+        }
+        return new CardPage(mapper.apply(pageCards), nextCursor);
+    }
+    
     private void validateRequest(CardRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Card request cannot be null");
         }
-        if (!panValidationService.isValidPan(request.getPan())) {
+        if (request.getPan() == null || !panValidationService.isValidPan(request.getPan().digits())) {
             throw new IllegalArgumentException("Invalid PAN");
         }
     }
     
     private Card createCardEntity(CardRequest request) {
         try {
+            SecurePan pan = request.getPan();
             Card card = new Card();
             card.setCardholderName(request.getCardholderName());
-            card.setEncryptedPan(encryptionService.encrypt(request.getPan()));
-            card.setPanHash(encryptionService.generateHash(request.getPan()));
-            card.setLastFourDigits(encryptionService.getLastFourDigits(request.getPan()));
-            card.setIv("");
+            EncryptedPan encrypted = metrics.observe(Stage.ENCRYPTION, () -> encryptionService.encrypt(pan.digits()));
+            card.setEncryptedPan(encrypted.ciphertext());
+            card.setPanNonce(encrypted.nonce());
+            card.setDataKeyId(encrypted.dataKeyId());
+            card.setPanHash(metrics.observe(Stage.HASHING, () -> panHashService.hash(pan.digits())));
+            card.setLastFourDigits(pan.lastFour());
+            card.setPanLength(pan.length());
+            card.setPanToken(tokenizationService.generateToken(pan));
             return card;
         } catch (Exception e) {
             throw new RuntimeException("Error creating card entity", e);
         }
     }
     
-    private CardResponse createCardResponse(Card card, String originalPan) {
+    private CardResponse createCardResponse(Card card, SecurePan pan) {
         try {
             return new CardResponse(
                 card.getId(),
                 card.getCardholderName(),
-                encryptionService.maskPan(originalPan),
+                encryptionService.maskPan(pan.length(), pan.lastFour()),
+                card.getPanToken(),
                 card.getCreatedTime()
             );
         } catch (Exception e) {
@@ -94,17 +342,48 @@ public class CardService {
         }
     }
     
-    private CardResponse createCardResponseFromEncrypted(Card card) {
-        try {
-            String decryptedPan = encryptionService.decrypt(card.getEncryptedPan());
-            return new CardResponse(
-                card.getId(),
-                card.getCardholderName(),
-                encryptionService.maskPan(decryptedPan),
-                card.getCreatedTime()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Error processing encrypted card", e);
+    private CardResponse createCardResponse(CardSummary card, String originalPan) {
+        return new CardResponse(
+            card.id(),
+            card.cardholderName(),
+            encryptionService.maskPan(originalPan),
+            card.panToken(),
+            card.createdTime()
+        );
+    }
+    
+    private List<CardResponse> createCardResponsesFromStored(List<CardSummary> cards) {
+        List<Long> legacyIds = cards.stream()
+            .filter(card -> card.panLength() == null)
+            .map(CardSummary::id)
+            .toList();
+        Map<Long, Integer> legacyPanLengths = legacyIds.isEmpty() ? Map.of() : decryptPanLengths(legacyIds);
+        return cards.stream()
+            .map(card -> {
+                Integer panLength = card.panLength() != null ? card.panLength() : legacyPanLengths.get(card.id());
+                if (panLength == null) {
+                    throw new IllegalStateException("Card " + card.id() + " disappeared");
+                }
+                return new CardResponse(
+                    card.id(),
+                    card.cardholderName(),
+                    encryptionService.maskPan(panLength, card.lastFourDigits()),
+                    card.panToken(),
+                    card.createdTime()
+                );
+            })
+            .collect(Collectors.toList());
+    }
+    
+    // Rows written before pan_length existed still need the PAN decrypted to be masked. They are loaded
+    // in one query and decrypted in parallel when there are many; the rotation job backfills pan_length
+    private Map<Long, Integer> decryptPanLengths(List<Long> ids) {
+        List<Card> cards = metrics.observe(Stage.DB_LOOKUP, () -> cardRepository.findAllById(ids));
+        List<Integer> panLengths = parallelDecryptor.decrypt(cards, pan -> pan.length);
+        Map<Long, Integer> byId = new HashMap<>();
+        for (int i = 0; i < cards.size(); i++) {
+            byId.put(cards.get(i).getId(), panLengths.get(i));
         }
+        return byId;
     }
 }
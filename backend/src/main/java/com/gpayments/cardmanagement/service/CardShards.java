@@ -0,0 +1,304 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.config.ShardRoutingDataSource;
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Places cards on shards by the top bits of their PAN HMAC: 1024 slots, each owned by one shard, with
+// the slot -> shard layout kept in card_shard_slots on the home shard. A card is written to and looked
+// up by PAN on its slot's shard only; other searches query every shard in parallel and merge. While the
+// resharding tool moves slots, their cards are written to the destination and read from both shards.
+// Without app.sharding there is a single shard and everything runs in the caller's transaction.
+@Component
+public class CardShards {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardShards.class);
+
+    public static final int SLOTS = 1024;
+    public static final int HOME = 0;
+
+    // Slot owners, and while slots move from one shard to another, their destination (-1 otherwise)
+    record Layout(int[] owners, int[] movingTo, int movingFrom, int movingToShard) {
+
+        boolean isMoving() {
+            return movingToShard >= 0;
+        }
+    }
+
+    private final ShardRoutingDataSource routing;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final ExecutorService scatterPool;
+    private volatile Layout layout;
+
+    public CardShards(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                      PlatformTransactionManager transactionManager,
+                      JdbcTemplate jdbcTemplate) {
+        this.routing = shardRoutingDataSource.getIfAvailable();
+        this.jdbcTemplate = jdbcTemplate;
+        // With shards, a shard's work gets a transaction of its own even inside another one, since the
+        // outer transaction's connection may belong to a different shard
+        int propagation = routing == null
+            ? TransactionDefinition.PROPAGATION_REQUIRED
+            : TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setPropagationBehavior(propagation);
+        this.readTemplate.setReadOnly(true);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(propagation);
+        // Shard queries wait on I/O, so each gets a virtual thread
+        this.scatterPool = routing == null
+            ? null
+            : Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("card-shard-", 0).factory());
+        if (routing != null) {
+            this.layout = loadLayout();
+        }
+    }
+
+    public boolean isSharded() {
+        return routing != null;
+    }
+
+    public int count() {
+        return routing == null ? 1 : routing.getShards().size();
+    }
+
+    public static int slot(byte[] panHash) {
+        return ((panHash[0] & 0xFF) << 8 | (panHash[1] & 0xFF)) >>> 6;
+    }
+
+    // Shard a card with this PAN is written to
+    public int writeShard(byte[] panHash) {
+        if (routing == null) {
+            return HOME;
+        }
+        Layout current = layout;
+        int slot = slot(panHash);
+        return current.movingTo()[slot] >= 0 ? current.movingTo()[slot] : current.owners()[slot];
+    }
+
+    // Runs the action in a transaction on the given shard
+    public <T> T inTransaction(int shard, boolean readOnly, Supplier<T> action) {
+        TransactionTemplate template = readOnly ? readTemplate : writeTemplate;
+        if (routing == null) {
+            return template.execute(status -> action.get());
+        }
+        Integer previous = routing.bind(shard);
+        try {
+            return template.execute(status -> action.get());
+        } finally {
+            routing.restore(previous);
+        }
+    }
+
+    // A read-only query on the given shard; without shards it runs in the caller's transaction, if any
+    public <T> T readOn(int shard, Supplier<T> query) {
+        return routing == null ? query.get() : inTransaction(shard, true, query);
+    }
+
+    // Shards to look these PANs up on, each with its PANs in the given order; a PAN whose slot is
+    // being moved is looked up on both shards
+    public Map<Integer, List<byte[]>> groupByReadShard(Collection<byte[]> panHashes) {
+        Map<Integer, List<byte[]>> groups = new TreeMap<>();
+        Layout current = layout;
+        for (byte[] panHash : panHashes) {
+            if (routing == null) {
+                groups.computeIfAbsent(HOME, shard -> new ArrayList<>()).add(panHash);
+                continue;
+            }
+            int slot = slot(panHash);
+            if (current.movingTo()[slot] >= 0) {
+                groups.computeIfAbsent(current.movingTo()[slot], shard -> new ArrayList<>()).add(panHash);
+            }
+            groups.computeIfAbsent(current.owners()[slot], shard -> new ArrayList<>()).add(panHash);
+        }
+        return groups;
+    }
+
+    // For data kept only on the home shard, so it is never read from a card shard's transaction
+    public <T> T onHome(Supplier<T> action) {
+        return routing == null ? action.get() : inTransaction(HOME, false, action);
+    }
+
+    // Cards for one PAN: one shard, or the two shards of a slot being moved, merged by id and then order
+    public <T> List<T> readByPanHash(byte[] panHash, Supplier<List<T>> query, Function<T, Long> id,
+                                     Comparator<? super T> order) {
+        if (routing == null) {
+            return query.get();
+        }
+        Layout current = layout;
+        int slot = slot(panHash);
+        int owner = current.owners()[slot];
+        int movingTo = current.movingTo()[slot];
+        if (movingTo < 0) {
+            return inTransaction(owner, true, query);
+        }
+        // The destination has the newer copy of a card already moved
+        return merge(List.of(inTransaction(movingTo, true, query), inTransaction(owner, true, query)), id, order);
+    }
+
+    // Scatter-gather: runs the query on every shard at once and merges the results by order. A card
+    // being moved can be on two shards; the destination's copy is kept.
+    public <T> List<T> readAll(Supplier<List<T>> query, Function<T, Long> id, Comparator<? super T> order) {
+        if (routing == null) {
+            return query.get();
+        }
+        List<Integer> shards = scatterOrder(layout);
+        List<Future<List<T>>> submitted = new ArrayList<>(shards.size() - 1);
+        try {
+            for (int shard : shards.subList(1, shards.size())) {
+                submitted.add(scatterPool.submit(() -> inTransaction(shard, true, query)));
+            }
+            List<List<T>> results = new ArrayList<>(shards.size());
+            // The caller queries the first shard instead of idling
+            results.add(inTransaction(shards.get(0), true, query));
+            for (Future<List<T>> result : submitted) {
+                results.add(result.get());
+            }
+            return merge(results, id, order);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardManagementException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CardManagementException("Error querying shards", e.getCause());
+        } finally {
+            submitted.forEach(result -> result.cancel(true));
+        }
+    }
+
+    // Picks up layout changes made by the resharding tool, here or on another instance
+    @Scheduled(fixedDelayString = "${app.sharding.layout-refresh-interval:PT5S}")
+    public void refresh() {
+        if (routing == null) {
+            return;
+        }
+        try {
+            layout = loadLayout();
+        } catch (DataAccessException e) {
+            logger.warn("Could not refresh the shard layout: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterPool != null) {
+            scatterPool.shutdown();
+        }
+    }
+
+    Layout layout() {
+        return layout;
+    }
+
+    // Private helper methods
+
+    // A fresh home database gets the slots spread over all shards; one that already holds cards keeps
+    // them all until the resharding tool spreads them
+    private Layout loadLayout() {
+        Layout loaded = inTransaction(HOME, true, this::readLayout);
+        if (loaded != null) {
+            return loaded;
+        }
+        try {
+            inTransaction(HOME, false, () -> {
+                boolean hasCards = !jdbcTemplate.queryForList("SELECT id FROM cards LIMIT 1", Long.class).isEmpty();
+                int shards = hasCards ? 1 : count();
+                List<Object[]> rows = new ArrayList<>(SLOTS);
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    rows.add(new Object[] {slot, slot % shards});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO card_shard_slots (slot, shard) VALUES (?, ?)", rows);
+                logger.info("Created shard layout over {} of {} shards", shards, count());
+                return null;
+            });
+        } catch (DuplicateKeyException e) {
+            // Another instance created it first
+        }
+        return inTransaction(HOME, true, this::readLayout);
+    }
+
+    private Layout readLayout() {
+        int[] owners = new int[SLOTS];
+        int[] movingTo = new int[SLOTS];
+        Arrays.fill(owners, -1);
+        int[] pair = {-1, -1};
+        jdbcTemplate.query("SELECT slot, shard, moving_to FROM card_shard_slots", resultSet -> {
+            int slot = resultSet.getInt("slot");
+            owners[slot] = resultSet.getInt("shard");
+            int to = resultSet.getInt("moving_to");
+            movingTo[slot] = resultSet.wasNull() ? -1 : to;
+            if (movingTo[slot] >= 0) {
+                pair[0] = owners[slot];
+                pair[1] = movingTo[slot];
+            }
+        });
+        if (Arrays.stream(owners).allMatch(owner -> owner < 0)) {
+            return null;
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (owners[slot] < 0 || owners[slot] >= count() || movingTo[slot] >= count()) {
+                throw new IllegalStateException("Shard layout does not match the " + count() + " configured shards");
+            }
+        }
+        return new Layout(owners, movingTo, pair[0], pair[1]);
+    }
+
+    // The destination of a move goes first, so merge keeps its copies
+    private List<Integer> scatterOrder(Layout current) {
+        List<Integer> shards = new ArrayList<>(count());
+        if (current.isMoving()) {
+            shards.add(current.movingToShard());
+        }
+        for (int shard = 0; shard < count(); shard++) {
+            if (!shards.contains(shard)) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    private static <T> List<T> merge(List<List<T>> results, Function<T, Long> id, Comparator<? super T> order) {
+        Set<Long> seen = new HashSet<>();
+        List<T> merged = new ArrayList<>();
+        for (List<T> result : results) {
+            for (T row : result) {
+                if (seen.add(id.apply(row))) {
+                    merged.add(row);
+                }
+            }
+        }
+        merged.sort(order);
+        return merged;
+    }
+}
@@ -0,0 +1,39 @@
+package com.gpayments.cardmanagement.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Lock-free pool for JCA engines (Mac, Cipher) that are expensive to look up but not thread-safe.
+// Unlike a ThreadLocal it does not grow with the number of (virtual) threads, and unlike a
+// synchronized cache it never pins a carrier thread.
+final class CryptoInstancePool<T> {
+    
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final Supplier<T> factory;
+    private final int maxIdle;
+    
+    CryptoInstancePool(Supplier<T> factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+    
+    T borrow() {
+        T instance = idle.poll();
+        if (instance == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return instance;
+    }
+    
+    // Only return instances in a clean state; anything that failed mid-operation should be dropped
+    void release(T instance) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(instance);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.DataKey;
+import com.gpayments.cardmanagement.repository.DataKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Envelope encryption data keys: PANs are encrypted with a data key, data keys are stored
+// wrapped by the master key. Unwrapped keys are cached so the hot path never touches the DB. Data keys
+// live on the home shard, even when looked up while a card shard's transaction is open.
+@Service
+public class DataKeyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DataKeyService.class);
+    
+    public record ActiveDataKey(int id, SecretKey key, LocalDateTime createdTime) {}
+    
+    private final DataKeyRepository dataKeyRepository;
+    private final MasterKeyProvider masterKeyProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final CardShards cardShards;
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    private final Map<Integer, SecretKey> keys = new ConcurrentHashMap<>();
+    // ReentrantLock rather than synchronized so virtual threads waiting here do not pin their carrier
+    private final ReentrantLock activationLock = new ReentrantLock();
+    private volatile ActiveDataKey activeKey;
+    
+    public DataKeyService(DataKeyRepository dataKeyRepository,
+                          MasterKeyProvider masterKeyProvider,
+                          TransactionTemplate transactionTemplate,
+                          CardShards cardShards) {
+        this.dataKeyRepository = dataKeyRepository;
+        this.masterKeyProvider = masterKeyProvider;
+        this.transactionTemplate = transactionTemplate;
+        this.cardShards = cardShards;
+    }
+    
+    public ActiveDataKey activeKey() {
+        ActiveDataKey current = activeKey;
+        if (current != null) {
+            return current;
+        }
+        
+        activationLock.lock();
+        try {
+            if (activeKey == null) {
+                DataKey dataKey = cardShards.onHome(() -> dataKeyRepository.findFirstByActiveTrueOrderByIdDesc()
+                    .orElseGet(() -> transactionTemplate.execute(status -> createDataKey())));
+                activate(dataKey);
+            }
+            return activeKey;
+        } finally {
+            activationLock.unlock();
+        }
+    }
+    
+    public SecretKey key(int id) {
+        SecretKey key = keys.get(id);
+        if (key != null) {
+            return key;
+        }
+        
+        // Loaded outside computeIfAbsent so no map lock is held during the DB round-trip
+        DataKey dataKey = cardShards.onHome(() -> dataKeyRepository.findById(id))
+            .orElseThrow(() -> new CardManagementException("Unknown data key " + id));
+        SecretKey loaded = masterKeyProvider.unwrap(dataKey.getWrappedKey());
+        SecretKey existing = keys.putIfAbsent(id, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    // Creates a new active data key; older keys stay readable until no row references them
+    public ActiveDataKey rotate() {
+        activationLock.lock();
+        try {
+            DataKey dataKey = cardShards.onHome(() -> transactionTemplate.execute(status -> {
+                DataKey created = createDataKey();
+                dataKeyRepository.deactivateAllExcept(created.getId());
+                return created;
+            }));
+            activate(dataKey);
+            logger.info("Rotated to data key {}", dataKey.getId());
+            return activeKey;
+        } finally {
+            activationLock.unlock();
+        }
+    }
+    
+    // Picks up a rotation performed by another instance
+    public ActiveDataKey refresh() {
+        activationLock.lock();
+        try {
+            cardShards.onHome(dataKeyRepository::findFirstByActiveTrueOrderByIdDesc)
+                .filter(dataKey -> activeKey == null || dataKey.getId() != activeKey.id())
+                .ifPresent(this::activate);
+        } finally {
+            activationLock.unlock();
+        }
+        return activeKey();
+    }
+    
+    private DataKey createDataKey() {
+        SecretKey key;
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, secureRandom);
+            key = generator.generateKey();
+        } catch (NoSuchAlgorithmException e) {
+            throw new CardManagementException("AES is not available", e);
+        }
+        
+        DataKey dataKey = new DataKey();
+        dataKey.setWrappedKey(masterKeyProvider.wrap(key));
+        dataKey.setActive(true);
+        DataKey saved = dataKeyRepository.save(dataKey);
+        keys.put(saved.getId(), key);
+        return saved;
+    }
+    
+    private void activate(DataKey dataKey) {
+        activeKey = new ActiveDataKey(dataKey.getId(), key(dataKey.getId()), dataKey.getCreatedTime());
+    }
+}
@@ -0,0 +1,233 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Decides whether a PAN may already be stored. A Bloom filter over pan_hmac answers "definitely new"
+// without a database round-trip; only possible matches (real duplicates and ~false-positive-rate of
+// new PANs) are confirmed against the table. The filter is restored from a disk snapshot at startup
+// and topped up from rows above the snapshot's id watermark, then periodically from rows written by
+// other instances. Across instances the check is best-effort: there is no unique constraint on pan_hmac,
+// and a card another instance commits from an id block further below the highest id seen than the
+// rescan margin never reaches the filter. The rescan lowers that miss rate, it does not rule misses
+// out, which is why REJECT and UPSERT are opt-in.
+// With shards there is no filter (the scan reads one table) and the check goes to the PAN's shard.
+@Service
+public class DuplicatePanDetector implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicatePanDetector.class);
+
+    private static final int LOCK_STRIPES = 256;
+    private static final String SCAN_QUERY =
+        "SELECT id, pan_hmac FROM cards WHERE id > ? AND pan_hmac IS NOT NULL ORDER BY id LIMIT ?";
+    private static final Comparator<Card> LATEST_FIRST =
+        Comparator.comparing(Card::getCreatedTime).thenComparing(Card::getId).reversed();
+
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CardShards cardShards;
+    private final CardMetrics metrics;
+    private final DuplicatePolicy policy;
+    private final Path snapshotPath;
+    private final long rescanMargin;
+    private final int scanBatchSize;
+    private final long keyFingerprint;
+    private final PanBloomFilter filter;
+    // Serializes check-then-insert for the same PAN within this instance
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    // Highest card id read from the table; rows above it are not in the filter unless inserted locally
+    private volatile long scannedId;
+    private volatile boolean ready;
+
+    public DuplicatePanDetector(CardRepository cardRepository,
+                                JdbcTemplate jdbcTemplate,
+                                CardShards cardShards,
+                                PanHashService panHashService,
+                                CardMetrics metrics,
+                                @Value("${app.duplicates.policy:ALLOW}") DuplicatePolicy policy,
+                                @Value("${app.duplicates.filter.expected-insertions:10000000}") long expectedInsertions,
+                                @Value("${app.duplicates.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${app.duplicates.filter.snapshot-path:}") String snapshotPath,
+                                @Value("${app.duplicates.filter.rescan-margin:100000}") long rescanMargin,
+                                @Value("${app.duplicates.filter.scan-batch-size:10000}") int scanBatchSize) {
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardShards = cardShards;
+        this.metrics = metrics;
+        this.policy = policy;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.rescanMargin = rescanMargin;
+        this.scanBatchSize = scanBatchSize;
+        // Ties snapshots to the HMAC key, so a pepper change forces a rebuild instead of false negatives
+        this.keyFingerprint = ByteBuffer.wrap(panHashService.hash("pan-filter-fingerprint")).getLong();
+        this.filter = policy == DuplicatePolicy.ALLOW || cardShards.isSharded() ? null : new PanBloomFilter(expectedInsertions, falsePositiveRate);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public DuplicatePolicy policy() {
+        return policy;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (filter == null) {
+            return;
+        }
+        // Until loading finishes every PAN counts as a possible duplicate and is checked in the database
+        Thread.ofPlatform().name("pan-filter-load").daemon().start(this::load);
+    }
+
+    // The most recent card stored for this PAN, if any
+    public Optional<Card> findExisting(byte[] panHash) {
+        if (filter != null && ready && !filter.mightContain(panHash)) {
+            metrics.recordDuplicateCheck("filtered");
+            return Optional.empty();
+        }
+        Optional<Card> existing = metrics.observe(CardMetrics.Stage.DB_LOOKUP, () -> cardShards.readByPanHash(panHash,
+                () -> cardRepository.findFirstByPanHashOrderByCreatedTimeDescIdDesc(panHash).stream().toList(),
+                Card::getId, LATEST_FIRST)
+            .stream().findFirst());
+        metrics.recordDuplicateCheck(existing.isPresent() ? "duplicate" : "false_positive");
+        return existing;
+    }
+
+    // Adds a PAN this instance has just stored (or rehashed) to the filter
+    public void recordStored(byte[] panHash) {
+        if (filter != null && panHash != null) {
+            filter.put(panHash);
+        }
+    }
+
+    // Runs the action holding the lock stripes of all given PANs, taken in index order so concurrent
+    // callers cannot deadlock. Not needed when duplicates are allowed.
+    public <T> T withLock(Collection<byte[]> panHashes, Supplier<T> action) {
+        if (policy == DuplicatePolicy.ALLOW) {
+            return action.get();
+        }
+        boolean[] needed = new boolean[LOCK_STRIPES];
+        for (byte[] panHash : panHashes) {
+            needed[stripe(panHash)] = true;
+        }
+        int locked = 0;
+        try {
+            for (; locked < LOCK_STRIPES; locked++) {
+                if (needed[locked]) {
+                    stripes[locked].lock();
+                }
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (needed[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.duplicates.filter.refresh-interval:PT1M}",
+               initialDelayString = "${app.duplicates.filter.refresh-interval:PT1M}")
+    public void refresh() {
+        if (ready) {
+            // Rows below the highest id seen can still commit (ids come in per-instance blocks); the margin
+            // catches most of them, not those from an older block. Adding a PAN twice is harmless
+            scanFrom(Math.max(0, scannedId - rescanMargin));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.duplicates.filter.snapshot-interval:PT10M}",
+               initialDelayString = "${app.duplicates.filter.snapshot-interval:PT10M}")
+    public void snapshot() {
+        if (!ready || snapshotPath == null) {
+            return;
+        }
+        try {
+            filter.writeSnapshot(snapshotPath, keyFingerprint, scannedId);
+        } catch (IOException e) {
+            logger.warn("Could not write PAN filter snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    // Private helper methods
+    private void load() {
+        long started = System.nanoTime();
+        long watermark = -1;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            try {
+                watermark = filter.readSnapshot(snapshotPath, keyFingerprint);
+                if (watermark < 0) {
+                    logger.info("Ignoring PAN filter snapshot {} built with different settings", snapshotPath);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read PAN filter snapshot {}: {}", snapshotPath, e.getMessage());
+            }
+        }
+
+        try {
+            // Ids are allocated in blocks, so rows just below the watermark may have committed after the snapshot
+            long rows = scanFrom(watermark < 0 ? 0 : Math.max(0, watermark - rescanMargin));
+            ready = true;
+            logger.info("PAN filter ready ({} MB, {} rows scanned, snapshot {}) in {} ms",
+                filter.sizeInBytes() >> 20, rows, watermark < 0 ? "not used" : "restored",
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Stays not-ready, so duplicate checks keep going to the database
+            logger.error("Could not build PAN filter: {}", e.getMessage(), e);
+        }
+    }
+
+    private long scanFrom(long afterId) {
+        long rows = 0;
+        long lastId = afterId;
+        while (true) {
+            long[] batchLastId = {-1};
+            int[] batchRows = {0};
+            jdbcTemplate.query(SCAN_QUERY, resultSet -> {
+                filter.put(resultSet.getBytes(2));
+                batchLastId[0] = resultSet.getLong(1);
+                batchRows[0]++;
+            }, lastId, scanBatchSize);
+            if (batchRows[0] == 0) {
+                break;
+            }
+            rows += batchRows[0];
+            lastId = batchLastId[0];
+            scannedId = Math.max(scannedId, lastId);
+            if (batchRows[0] < scanBatchSize) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    private static int stripe(byte[] panHash) {
+        return panHash[panHash.length - 1] & (LOCK_STRIPES - 1);
+    }
+}
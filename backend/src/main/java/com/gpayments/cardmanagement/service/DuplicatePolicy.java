@@ -0,0 +1,11 @@
+package com.gpayments.cardmanagement.service;
+
+// What a create does when a card with the same PAN already exists
+public enum DuplicatePolicy {
+    // Refuse the new card (409 for single creates, REJECTED line for bulk imports); best-effort across instances
+    REJECT,
+    // Store another card for the same PAN (the default, and the original behaviour)
+    ALLOW,
+    // Update the cardholder name of the most recent existing card instead of inserting
+    UPSERT
+}
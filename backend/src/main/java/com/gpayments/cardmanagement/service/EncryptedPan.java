@@ -0,0 +1,5 @@
+package com.gpayments.cardmanagement.service;
+
+// AES-256-GCM envelope: ciphertext (with tag) plus the nonce and the id of the data key that produced it
+public record EncryptedPan(int dataKeyId, byte[] nonce, byte[] ciphertext) {
+}
@@ -1,55 +1,104 @@
 package com.gpayments.cardmanagement.service;
 
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.Card;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 
 @Service
 public class EncryptionService {
     
-    @Value("${app.encryption.secret-key}")
-    private String secretKey;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
     
-    private final AesBytesEncryptor encryptor;
+    private final DataKeyService dataKeyService;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final CryptoInstancePool<Cipher> cipherPool;
+    private final LegacyPanDecryptor legacyDecryptor;
     
-    public EncryptionService(@Value("${app.encryption.secret-key}") String secretKey) {
-        // AesBytesEncryptor constructor: (password, salt)
-        // Using a fixed salt for consistent encryption/decryption
-        this.encryptor = new AesBytesEncryptor(secretKey, "card-management-salt");
+    public EncryptionService(DataKeyService dataKeyService,
+                             @Value("${app.encryption.secret-key}") String legacySecretKey,
+                             @Value("${app.encryption.legacy-salt:}") String legacySalt) {
+        this.dataKeyService = dataKeyService;
+        this.legacyDecryptor = new LegacyPanDecryptor(legacySecretKey, legacySalt);
+        this.cipherPool = new CryptoInstancePool<>(EncryptionService::newCipher, Runtime.getRuntime().availableProcessors() * 4);
     }
     
-    public String encrypt(String plaintext) throws Exception {
+    public EncryptedPan encrypt(CharSequence pan) {
+        if (pan == null) {
+            throw new IllegalArgumentException("Plaintext cannot be null");
+        }
+        
+        byte[] plaintext = new byte[pan.length()];
+        for (int i = 0; i < plaintext.length; i++) {
+            plaintext[i] = (byte) pan.charAt(i);
+        }
+        try {
+            return encrypt(plaintext);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+    
+    // Every call uses a fresh random nonce, so equal PANs never produce equal ciphertexts
+    public EncryptedPan encrypt(byte[] plaintext) {
         if (plaintext == null) {
             throw new IllegalArgumentException("Plaintext cannot be null");
         }
         
-        // Spring handles all the low-level crypto operations internally
-        byte[] encrypted = encryptor.encrypt(plaintext.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(encrypted);
+        DataKeyService.ActiveDataKey dataKey = dataKeyService.activeKey();
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        
+        Cipher cipher = cipherPool.borrow();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey.key(), new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            cipherPool.release(cipher);
+            return new EncryptedPan(dataKey.id(), nonce, ciphertext);
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("Error encrypting PAN", e);
+        }
     }
     
-    public String decrypt(String encryptedData) throws Exception {
-        if (encryptedData == null) {
+    // Returns the clear PAN bytes; callers should wipe the array once done with it
+    public byte[] decrypt(EncryptedPan encrypted) {
+        if (encrypted == null || encrypted.nonce() == null || encrypted.ciphertext() == null) {
             throw new IllegalArgumentException("Encrypted data cannot be null");
         }
         
-        byte[] decoded = Base64.getDecoder().decode(encryptedData);
-        byte[] decrypted = encryptor.decrypt(decoded);
-        return new String(decrypted, StandardCharsets.UTF_8);
+        SecretKey key = dataKeyService.key(encrypted.dataKeyId());
+        Cipher cipher = cipherPool.borrow();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, encrypted.nonce()));
+            byte[] plaintext = cipher.doFinal(encrypted.ciphertext());
+            cipherPool.release(cipher);
+            return plaintext;
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("Error decrypting PAN", e);
+        }
     }
     
-    public String generateHash(String pan) throws Exception {
-        if (pan == null) {
-            throw new IllegalArgumentException("PAN cannot be null");
+    // Decrypts whichever form the card was stored in (AES-GCM envelope or legacy AES-CBC)
+    public byte[] decrypt(Card card) {
+        if (card.getDataKeyId() != null) {
+            return decrypt(new EncryptedPan(card.getDataKeyId(), card.getPanNonce(), card.getEncryptedPan()));
         }
-        
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(pan.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(hash);
+        if (card.getLegacyEncryptedPan() != null) {
+            return decryptLegacy(card.getLegacyEncryptedPan());
+        }
+        throw new CardManagementException("Card " + card.getId() + " has no encrypted PAN");
     }
     
     public String getLastFourDigits(String pan) {
@@ -73,6 +122,29 @@ public class EncryptionService {
         }
         return "*".repeat(pan.length() - 4) + pan.substring(pan.length() - 4);
     }
+    
+    // Masks from stored metadata so callers never need to decrypt just to display a card
+    public String maskPan(int panLength, String lastFourDigits) {
+        if (lastFourDigits == null) {
+            return "";
+        }
+        
+        if (panLength <= lastFourDigits.length()) {
+            return lastFourDigits;
+        }
+        return "*".repeat(panLength - lastFourDigits.length()) + lastFourDigits;
+    }
+    
+    private byte[] decryptLegacy(String encryptedData) {
+        byte[] decoded = Base64.getDecoder().decode(encryptedData);
+        return legacyDecryptor.decrypt(decoded);
+    }
+    
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new CardManagementException("AES-GCM is not available", e);
+        }
+    }
 }
-
-
@@ -0,0 +1,253 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32C;
+
+// Append-only write-ahead log of accepted-but-not-yet-stored cards. Records hold the prepared card
+// (ciphertext, nonce, key id, HMAC, last four, length, token), never the clear PAN. Each record is framed as
+// [length][crc32c][payload], so a record torn by a crash is detected and dropped on recovery.
+// Concurrent appenders share fsyncs: whoever forces the file covers everything written before it.
+final class IngestionJournal implements Closeable {
+
+    private static final byte ACCEPTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    record Entry(UUID trackingId, Card card) {}
+
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long writtenPosition;
+    private volatile long syncedPosition;
+
+    IngestionJournal(Path path, boolean fsync) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.fsync = fsync;
+    }
+
+    // Reads the journal back and returns accepted cards without a completion record, in acceptance
+    // order. Anything after the first torn or corrupt record is truncated away.
+    List<Entry> recover() throws IOException {
+        appendLock.lock();
+        try {
+            Map<UUID, Card> accepted = new LinkedHashMap<>();
+            Set<UUID> completed = new HashSet<>();
+            long position = 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, position + HEADER_BYTES);
+                if (checksum(payload.array()) != checksum) {
+                    break;
+                }
+                decode(payload.array(), accepted, completed);
+                position += HEADER_BYTES + length;
+            }
+            if (position < size) {
+                channel.truncate(position);
+                channel.force(false);
+            }
+            writtenPosition = position;
+            syncedPosition = position;
+
+            List<Entry> pending = new ArrayList<>();
+            accepted.forEach((trackingId, card) -> {
+                if (!completed.contains(trackingId)) {
+                    pending.add(new Entry(trackingId, card));
+                }
+            });
+            return pending;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Returns once the record is on disk (when fsync is enabled)
+    void appendAccepted(UUID trackingId, Card card) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ACCEPTED);
+        writeUuid(out, trackingId);
+        out.writeUTF(card.getCardholderName());
+        out.writeInt(card.getDataKeyId());
+        writeBytes(out, card.getPanNonce());
+        writeBytes(out, card.getEncryptedPan());
+        writeBytes(out, card.getPanHash());
+        out.writeUTF(card.getLastFourDigits());
+        out.writeInt(card.getPanLength());
+        out.writeUTF(card.getPanToken());
+        sync(append(bytes.toByteArray()));
+    }
+
+    void appendCompleted(Collection<UUID> trackingIds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + trackingIds.size() * 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(COMPLETED);
+        out.writeInt(trackingIds.size());
+        for (UUID trackingId : trackingIds) {
+            writeUuid(out, trackingId);
+        }
+        sync(append(bytes.toByteArray()));
+    }
+
+    // Empties the journal once it has grown past the threshold and nothing in it is still pending.
+    // idle is checked under the append lock, so no acceptance can be written concurrently.
+    boolean truncateIfIdle(long thresholdBytes, BooleanSupplier idle) throws IOException {
+        if (writtenPosition < thresholdBytes) {
+            return false;
+        }
+        appendLock.lock();
+        try {
+            if (writtenPosition < thresholdBytes || !idle.getAsBoolean()) {
+                return false;
+            }
+            syncLock.lock();
+            try {
+                channel.truncate(0);
+                channel.force(false);
+                writtenPosition = 0;
+                syncedPosition = 0;
+                return true;
+            } finally {
+                syncLock.unlock();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    long size() {
+        return writtenPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Private helper methods
+    private long append(byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        appendLock.lock();
+        try {
+            long position = writtenPosition;
+            while (frame.hasRemaining()) {
+                position += channel.write(frame, position);
+            }
+            writtenPosition = position;
+            return position;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void sync(long position) throws IOException {
+        if (!fsync || syncedPosition >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // A force by another appender while we waited may already cover this record
+            if (syncedPosition < position) {
+                long target = writtenPosition;
+                channel.force(false);
+                syncedPosition = target;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private static void decode(byte[] payload, Map<UUID, Card> accepted, Set<UUID> completed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            byte type = in.readByte();
+            if (type == ACCEPTED) {
+                UUID trackingId = readUuid(in);
+                Card card = new Card();
+                card.setCardholderName(in.readUTF());
+                card.setDataKeyId(in.readInt());
+                card.setPanNonce(readBytes(in));
+                card.setEncryptedPan(readBytes(in));
+                card.setPanHash(readBytes(in));
+                card.setLastFourDigits(in.readUTF());
+                card.setPanLength(in.readInt());
+                card.setPanToken(in.readUTF());
+                card.setIngestionId(trackingId);
+                accepted.put(trackingId, card);
+            } else if (type == COMPLETED) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    completed.add(readUuid(in));
+                }
+            } else {
+                throw new IOException("Unknown ingestion journal record type " + type);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated ingestion journal record", e);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,106 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+// Rotates the active data key once it is older than key-max-age, and re-encrypts cards still
+// under an older key (or legacy AES-CBC) in small batches. Each row is written in its own short
+// transaction, so readers only ever wait on the row being written and a failed row never rolls
+// back the others. Shards are re-encrypted one after another.
+@Service
+public class KeyRotationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KeyRotationService.class);
+    
+    private final CardRepository cardRepository;
+    private final DataKeyService dataKeyService;
+    private final EncryptionService encryptionService;
+    private final CardShards cardShards;
+    private final Duration keyMaxAge;
+    private final int batchSize;
+    
+    public KeyRotationService(CardRepository cardRepository,
+                              DataKeyService dataKeyService,
+                              EncryptionService encryptionService,
+                              CardShards cardShards,
+                              @Value("${app.encryption.rotation.key-max-age:P90D}") Duration keyMaxAge,
+                              @Value("${app.encryption.rotation.batch-size:500}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.dataKeyService = dataKeyService;
+        this.encryptionService = encryptionService;
+        this.cardShards = cardShards;
+        this.keyMaxAge = keyMaxAge;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.encryption.rotation.check-interval:PT1H}",
+               initialDelayString = "${app.encryption.rotation.initial-delay:PT1M}")
+    public void rotateIfDue() {
+        DataKeyService.ActiveDataKey active = dataKeyService.refresh();
+        if (active.createdTime() != null && active.createdTime().plus(keyMaxAge).isBefore(LocalDateTime.now())) {
+            dataKeyService.rotate();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.encryption.rotation.reencrypt-interval:PT5M}",
+               initialDelayString = "${app.encryption.rotation.initial-delay:PT1M}")
+    public void reencryptStaleCards() {
+        int dataKeyId = dataKeyService.refresh().id();
+        long reencrypted = 0;
+        for (int shard = 0; shard < cardShards.count(); shard++) {
+            long afterId = 0;
+            while (true) {
+                long cursor = afterId;
+                List<Card> cards = cardShards.inTransaction(shard, true,
+                    () -> cardRepository.findPageNotEncryptedWith(dataKeyId, cursor, PageRequest.ofSize(batchSize)));
+                if (cards.isEmpty()) {
+                    break;
+                }
+                reencrypted += reencryptBatch(shard, cards);
+                afterId = cards.get(cards.size() - 1).getId();
+            }
+        }
+        
+        if (reencrypted > 0) {
+            logger.info("Re-encrypted {} cards under data key {}", reencrypted, dataKeyId);
+        }
+    }
+    
+    private int reencryptBatch(int shard, List<Card> cards) {
+        int reencrypted = 0;
+        for (Card card : cards) {
+            byte[] pan = null;
+            try {
+                pan = encryptionService.decrypt(card);
+                EncryptedPan encrypted = encryptionService.encrypt(pan);
+                // Legacy rows get their length here, so searches stop decrypting them
+                int panLength = card.getPanLength() != null ? card.getPanLength() : pan.length;
+                // Targeted updates rather than saving the entity: a row changed since it was read keeps the
+                // other writer's values, and a card re-encrypted meanwhile is simply not counted
+                reencrypted += cardShards.inTransaction(shard, false, () -> card.getDataKeyId() == null
+                    ? cardRepository.reencryptLegacyPan(card.getId(), encrypted.ciphertext(), encrypted.nonce(),
+                        encrypted.dataKeyId(), panLength)
+                    : cardRepository.reencryptPan(card.getId(), card.getDataKeyId(), encrypted.ciphertext(),
+                        encrypted.nonce(), encrypted.dataKeyId(), panLength));
+            } catch (RuntimeException e) {
+                logger.warn("Could not re-encrypt card {}: {}", card.getId(), e.getMessage());
+            } finally {
+                if (pan != null) {
+                    Arrays.fill(pan, (byte) 0);
+                }
+            }
+        }
+        return reencrypted;
+    }
+}
@@ -0,0 +1,255 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// In-memory index from last four digits to card ids, so a last-four search resolves its candidates
+// without touching the last-four database index. Like the duplicate PAN filter it is restored from a
+// (memory-mapped) snapshot at startup, topped up from rows above the snapshot's id watermark, kept
+// current by this instance's writes and refreshed periodically with rows written by other instances.
+// Ids say little about commit order (another instance can commit from a block it held for hours), so
+// every scan also re-reads the cards created since the previous one; cards created after
+// completeBefore() may still be missing and searches read those from the database. Until it is
+// ready, lookups return null and searches use the database index.
+@Service
+public class LastFourIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastFourIndex.class);
+
+    private static final String SCAN_QUERY =
+        "SELECT id, last_four_digits FROM cards WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String CREATED_SCAN_QUERY =
+        "SELECT id, last_four_digits, created_time FROM cards WHERE (created_time, id) > (?, ?)"
+            + " ORDER BY created_time, id LIMIT ?";
+    private static final String DATABASE_ID_QUERY = "SELECT id FROM database_identity";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final long rescanMargin;
+    private final Duration commitLag;
+    private final int scanBatchSize;
+    private final SuffixPostingIndex index = new SuffixPostingIndex();
+    // Highest card id read from the table; rows above it are not indexed unless written locally
+    private volatile long scannedId;
+    // Every card created before this is indexed; null until ready
+    private volatile LocalDateTime completeBefore;
+    private volatile UUID databaseId;
+    private volatile boolean ready;
+
+    public LastFourIndex(JdbcTemplate jdbcTemplate,
+                         CardShards cardShards,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.search.last-four-index.enabled:true}") boolean enabled,
+                         @Value("${app.search.last-four-index.snapshot-path:}") String snapshotPath,
+                         @Value("${app.search.last-four-index.rescan-margin:100000}") long rescanMargin,
+                         @Value("${app.search.last-four-index.commit-lag:PT1M}") Duration commitLag,
+                         @Value("${app.search.last-four-index.scan-batch-size:10000}") int scanBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // It scans a single table, so with shards last-four searches go to every shard instead
+        this.enabled = enabled && !cardShards.isSharded();
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.rescanMargin = rescanMargin;
+        this.commitLag = commitLag;
+        this.scanBatchSize = scanBatchSize;
+        Gauge.builder("card.last-four-index.size", index, SuffixPostingIndex::size)
+            .description("Card ids held by the in-memory last-four index")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            Thread.ofPlatform().name("last-four-index-load").daemon().start(this::load);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Read it before lookup(): cards created at or after it may be missing from the ids lookup returns
+    public LocalDateTime completeBefore() {
+        return completeBefore;
+    }
+
+    // Sorted ids of the cards ending in these digits, or null when the index cannot answer. The array
+    // is shared: read it, never modify it
+    public long[] lookup(String lastFourDigits) {
+        int suffix = SuffixPostingIndex.suffix(lastFourDigits);
+        if (!ready || suffix < 0) {
+            return null;
+        }
+        return index.get(suffix);
+    }
+
+    // Adds a card this instance has just committed
+    public void recordStored(Card card) {
+        int suffix = SuffixPostingIndex.suffix(card.getLastFourDigits());
+        if (enabled && card.getId() != null && suffix >= 0) {
+            index.add(suffix, card.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.last-four-index.refresh-interval:PT10S}",
+               initialDelayString = "${app.search.last-four-index.refresh-interval:PT10S}")
+    public void refresh() {
+        if (ready) {
+            LocalDateTime started = LocalDateTime.now();
+            // Rows above the highest id seen, including any written with an old created_time
+            scanFrom(Math.max(0, scannedId - rescanMargin), null);
+            // Other instances commit ids from their own sequence blocks, so rows far below the highest id
+            // seen can still appear; ids already indexed are skipped by the merge
+            scanCreatedSince(completeBefore, null);
+            completeBefore = started.minus(commitLag);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.last-four-index.snapshot-interval:PT10M}",
+               initialDelayString = "${app.search.last-four-index.snapshot-interval:PT10M}")
+    public void snapshot() {
+        if (!ready || snapshotPath == null) {
+            return;
+        }
+        try {
+            index.writeSnapshot(snapshotPath, new SuffixPostingIndex.Coverage(databaseId, scannedId, completeBefore));
+        } catch (IOException e) {
+            logger.warn("Could not write last-four index snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    // Private helper methods
+    private void load() {
+        long started = System.nanoTime();
+        LocalDateTime loadStarted = LocalDateTime.now();
+        // Everything read during the load is merged in one pass, so the load never copies a list per row
+        SuffixPostingIndex.Builder loaded = new SuffixPostingIndex.Builder();
+        try {
+            UUID currentDatabaseId = jdbcTemplate.queryForObject(DATABASE_ID_QUERY, UUID.class);
+            SuffixPostingIndex.Coverage coverage = readSnapshot(currentDatabaseId, loaded);
+
+            // Ids are allocated in blocks, so rows just below the watermark may have committed after the snapshot
+            long rows = scanFrom(coverage == null ? 0 : Math.max(0, coverage.watermark() - rescanMargin), loaded);
+            if (coverage != null) {
+                rows += scanCreatedSince(coverage.completeBefore(), loaded);
+            }
+            index.addAll(loaded);
+            scannedId = Math.max(scannedId, coverage == null ? 0 : coverage.watermark());
+            databaseId = currentDatabaseId;
+            completeBefore = loadStarted.minus(commitLag);
+            ready = true;
+            logger.info("Last-four index ready ({} ids, {} rows scanned, snapshot {}) in {} ms",
+                index.size(), rows, coverage == null ? "not used" : "restored",
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Stays not-ready, so searches keep using the database index
+            logger.error("Could not build last-four index: {}", e.getMessage(), e);
+        }
+    }
+
+    private SuffixPostingIndex.Coverage readSnapshot(UUID currentDatabaseId, SuffixPostingIndex.Builder into) {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return null;
+        }
+        try {
+            SuffixPostingIndex.Coverage coverage = SuffixPostingIndex.readSnapshot(snapshotPath, currentDatabaseId, into);
+            if (coverage == null) {
+                logger.info("Ignoring last-four index snapshot {} from another database or in an unknown format",
+                    snapshotPath);
+            }
+            return coverage;
+        } catch (IOException e) {
+            logger.warn("Could not read last-four index snapshot {}: {}", snapshotPath, e.getMessage());
+            return null;
+        }
+    }
+
+    // Reads rows above afterId into the load's builder, or (when refreshing) straight into the index
+    private long scanFrom(long afterId, SuffixPostingIndex.Builder into) {
+        long rows = 0;
+        long lastId = afterId;
+        while (true) {
+            SuffixPostingIndex.Builder batch = into != null ? into : new SuffixPostingIndex.Builder();
+            long[] batchLastId = {-1};
+            int[] batchRows = {0};
+            jdbcTemplate.query(SCAN_QUERY, resultSet -> {
+                int suffix = SuffixPostingIndex.suffix(resultSet.getString(2));
+                if (suffix >= 0) {
+                    batch.append(suffix, resultSet.getLong(1));
+                }
+                batchLastId[0] = resultSet.getLong(1);
+                batchRows[0]++;
+            }, lastId, scanBatchSize);
+            if (batchRows[0] == 0) {
+                break;
+            }
+            if (into == null) {
+                index.addAll(batch);
+            }
+            rows += batchRows[0];
+            lastId = batchLastId[0];
+            scannedId = Math.max(scannedId, lastId);
+            if (batchRows[0] < scanBatchSize) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    // Reads rows created at or after since, in (created_time, id) order, like scanFrom
+    private long scanCreatedSince(LocalDateTime since, SuffixPostingIndex.Builder into) {
+        long rows = 0;
+        LocalDateTime lastCreated = since;
+        long lastId = 0;
+        while (true) {
+            SuffixPostingIndex.Builder batch = into != null ? into : new SuffixPostingIndex.Builder();
+            LocalDateTime[] batchLastCreated = {null};
+            long[] batchLastId = {-1};
+            int[] batchRows = {0};
+            jdbcTemplate.query(CREATED_SCAN_QUERY, resultSet -> {
+                int suffix = SuffixPostingIndex.suffix(resultSet.getString(2));
+                if (suffix >= 0) {
+                    batch.append(suffix, resultSet.getLong(1));
+                }
+                batchLastId[0] = resultSet.getLong(1);
+                batchLastCreated[0] = resultSet.getObject(3, LocalDateTime.class);
+                batchRows[0]++;
+            }, lastCreated, lastId, scanBatchSize);
+            if (batchRows[0] == 0) {
+                break;
+            }
+            if (into == null) {
+                index.addAll(batch);
+            }
+            rows += batchRows[0];
+            lastCreated = batchLastCreated[0];
+            lastId = batchLastId[0];
+            if (batchRows[0] < scanBatchSize) {
+                break;
+            }
+        }
+        return rows;
+    }
+}
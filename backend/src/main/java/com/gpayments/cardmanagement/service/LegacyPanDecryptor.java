@@ -0,0 +1,85 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import org.springframework.security.crypto.codec.Hex;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+
+// Reads the AES-CBC format written by Spring's AesBytesEncryptor(password, salt): no IV prefix, since
+// that constructor encrypts with an all-zero IV, and a key from PBKDF2WithHmacSHA1 (1024 iterations) over
+// the hex-decoded salt. AesBytesEncryptor serializes every call on one shared Cipher with synchronized,
+// which pins virtual threads, so this uses pooled ciphers instead.
+final class LegacyPanDecryptor {
+
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final int BLOCK_SIZE = 16;
+    private static final IvParameterSpec ZERO_IV = new IvParameterSpec(new byte[BLOCK_SIZE]);
+    private static final int PBKDF2_ITERATIONS = 1024;
+    private static final int KEY_LENGTH_BITS = 256;
+
+    private final String password;
+    private final byte[] salt;
+    private final CryptoInstancePool<Cipher> cipherPool;
+    private volatile SecretKey key;
+
+    // A blank salt means no legacy rows are expected; a non-hex one is rejected, as AesBytesEncryptor does
+    LegacyPanDecryptor(String password, CharSequence hexSalt) {
+        this.password = password;
+        this.salt = hexSalt == null || hexSalt.isEmpty() ? null : Hex.decode(hexSalt);
+        this.cipherPool = new CryptoInstancePool<>(LegacyPanDecryptor::newCipher, Runtime.getRuntime().availableProcessors());
+    }
+
+    byte[] decrypt(byte[] encrypted) {
+        if (encrypted.length == 0 || encrypted.length % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("Legacy ciphertext is not a whole number of AES blocks");
+        }
+
+        SecretKey legacyKey = key();
+        Cipher cipher = cipherPool.borrow();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, legacyKey, ZERO_IV);
+            byte[] plaintext = cipher.doFinal(encrypted);
+            cipherPool.release(cipher);
+            return plaintext;
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("Error decrypting legacy PAN", e);
+        }
+    }
+
+    // Derived on first use so PBKDF2 only runs if legacy rows are actually read
+    private SecretKey key() {
+        SecretKey derived = key;
+        if (derived == null) {
+            if (salt == null) {
+                throw new CardManagementException("Legacy card found but app.encryption.legacy-salt is not set");
+            }
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, PBKDF2_ITERATIONS, KEY_LENGTH_BITS);
+            try {
+                byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+                derived = new SecretKeySpec(encoded, "AES");
+            } catch (GeneralSecurityException e) {
+                throw new CardManagementException("Error deriving legacy key", e);
+            } finally {
+                spec.clearPassword();
+            }
+            key = derived;
+        }
+        return derived;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new CardManagementException("AES-CBC is not available", e);
+        }
+    }
+}
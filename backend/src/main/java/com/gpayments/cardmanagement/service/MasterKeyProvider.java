@@ -0,0 +1,118 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+// Holds the master key from a local PKCS12 keystore. The master key never touches card data;
+// it only wraps and unwraps the data keys stored in the database.
+@Component
+public class MasterKeyProvider {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MasterKeyProvider.class);
+    
+    private static final String KEYSTORE_TYPE = "PKCS12";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    
+    private final SecretKey masterKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+    
+    public MasterKeyProvider(@Value("${app.encryption.keystore.path}") String path,
+                             @Value("${app.encryption.keystore.password}") String password,
+                             @Value("${app.encryption.keystore.alias}") String alias,
+                             @Value("${app.encryption.keystore.create-if-missing:false}") boolean createIfMissing) {
+        this.masterKey = loadOrCreate(Path.of(path), password.toCharArray(), alias, createIfMissing);
+    }
+    
+    public byte[] wrap(SecretKey dataKey) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+            byte[] ciphertext = cipher.doFinal(dataKey.getEncoded());
+            
+            byte[] wrapped = Arrays.copyOf(nonce, NONCE_LENGTH + ciphertext.length);
+            System.arraycopy(ciphertext, 0, wrapped, NONCE_LENGTH, ciphertext.length);
+            return wrapped;
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("Error wrapping data key", e);
+        }
+    }
+    
+    public SecretKey unwrap(byte[] wrapped) {
+        if (wrapped == null || wrapped.length <= NONCE_LENGTH) {
+            throw new IllegalArgumentException("Wrapped key is too short");
+        }
+        
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH_BITS, wrapped, 0, NONCE_LENGTH));
+            byte[] keyBytes = cipher.doFinal(wrapped, NONCE_LENGTH, wrapped.length - NONCE_LENGTH);
+            SecretKey key = new SecretKeySpec(keyBytes, "AES");
+            Arrays.fill(keyBytes, (byte) 0);
+            return key;
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("Error unwrapping data key", e);
+        }
+    }
+    
+    private SecretKey loadOrCreate(Path path, char[] password, String alias, boolean createIfMissing) {
+        try {
+            KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+            if (Files.exists(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    keyStore.load(in, password);
+                }
+                Key key = keyStore.getKey(alias, password);
+                if (!(key instanceof SecretKey secretKey)) {
+                    throw new CardManagementException("No secret key '" + alias + "' in keystore " + path);
+                }
+                return secretKey;
+            }
+            
+            if (!createIfMissing) {
+                throw new CardManagementException("Master keystore not found: " + path);
+            }
+            
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, secureRandom);
+            SecretKey key = generator.generateKey();
+            
+            keyStore.load(null, password);
+            keyStore.setEntry(alias, new KeyStore.SecretKeyEntry(key), new KeyStore.PasswordProtection(password));
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                keyStore.store(out, password);
+            }
+            logger.warn("Created a new master key in {}; back this file up, data keys cannot be recovered without it", path);
+            return key;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new CardManagementException("Error loading master key from " + path, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.gpayments.cardmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gpayments.cardmanagement.dto.CardEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends each batch to a local file, one JSON event per line, with a single write and fsync per batch
+@Component
+@ConditionalOnProperty(name = "app.events.sink", havingValue = "file", matchIfMissing = true)
+public class NdjsonCardEventSink implements CardEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+    private final boolean fsync;
+
+    public NdjsonCardEventSink(ObjectMapper objectMapper,
+                               @Value("${app.events.file.path:./data/card-events.ndjson}") String path,
+                               @Value("${app.events.file.fsync:true}") boolean fsync) throws IOException {
+        Path file = Path.of(path);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.objectMapper = objectMapper;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.fsync = fsync;
+    }
+
+    // The relay publishes from one thread at a time
+    @Override
+    public void publish(List<CardEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        for (CardEvent event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,183 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardPanMatch;
+import com.gpayments.cardmanagement.dto.CardResponse;
+import com.gpayments.cardmanagement.dto.CardSummary;
+import com.gpayments.cardmanagement.dto.PanSearchResult;
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import com.gpayments.cardmanagement.service.CardMetrics.SearchType;
+import com.gpayments.cardmanagement.service.CardMetrics.Stage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Full-PAN search for many PANs in one request, for reconciliation jobs. PANs are hashed in parallel,
+// answered from the PAN lookup cache where possible, and the rest are resolved with chunked
+// pan_hmac IN (...) queries instead of one query per PAN, one set per shard holding the PANs. Results
+// come back in request order.
+@Service
+public class PanBatchSearchService {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final Comparator<CardSummary> SEARCH_ORDER =
+        Comparator.comparing(CardSummary::createdTime).thenComparing(CardSummary::id);
+
+    private final CardRepository cardRepository;
+    private final CardShards cardShards;
+    private final PanHashService panHashService;
+    private final EncryptionService encryptionService;
+    private final PanLookupCache panLookupCache;
+    private final CardMetrics metrics;
+    private final ForkJoinPool workerPool;
+    private final int maxPans;
+    private final int chunkSize;
+    private final int parallelThreshold;
+
+    public PanBatchSearchService(CardRepository cardRepository,
+                                 CardShards cardShards,
+                                 PanHashService panHashService,
+                                 EncryptionService encryptionService,
+                                 PanLookupCache panLookupCache,
+                                 CardMetrics metrics,
+                                 @Value("${app.search.pan-batch.max-pans:1000}") int maxPans,
+                                 @Value("${app.search.pan-batch.chunk-size:500}") int chunkSize,
+                                 @Value("${app.search.pan-batch.parallel-threshold:64}") int parallelThreshold,
+                                 @Value("${app.search.pan-batch.parallelism:0}") int parallelism) {
+        if (maxPans < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("PAN batch size and query chunk size must be positive");
+        }
+        this.cardRepository = cardRepository;
+        this.cardShards = cardShards;
+        this.panHashService = panHashService;
+        this.encryptionService = encryptionService;
+        this.panLookupCache = panLookupCache;
+        this.metrics = metrics;
+        this.maxPans = maxPans;
+        this.chunkSize = chunkSize;
+        this.parallelThreshold = parallelThreshold;
+        // HMACs are CPU bound, so one worker per core, as for bulk import
+        this.workerPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // The PANs are wiped before this returns
+    @Transactional(readOnly = true)
+    public List<PanSearchResult> search(List<SecurePan> pans) {
+        try {
+            if (pans.size() > maxPans) {
+                throw new IllegalArgumentException("At most " + maxPans + " PANs per batch");
+            }
+            byte[][] panHashes = hashAll(pans);
+
+            // Repeated PANs are looked up once
+            Map<String, byte[]> unique = new LinkedHashMap<>();
+            for (byte[] panHash : panHashes) {
+                unique.putIfAbsent(HEX.formatHex(panHash), panHash);
+            }
+            Map<String, List<CardResponse>> cached = new HashMap<>();
+            Map<String, List<CardSummary>> loaded = new HashMap<>();
+            Map<String, Long> versions = new HashMap<>();
+            List<byte[]> missing = new ArrayList<>();
+            unique.forEach((key, panHash) -> {
+                List<CardResponse> hit = panLookupCache.get(panHash);
+                if (hit != null) {
+                    cached.put(key, hit);
+                } else {
+                    versions.put(key, panLookupCache.version(panHash));
+                    loaded.put(key, new ArrayList<>());
+                    missing.add(panHash);
+                }
+            });
+            Map<Integer, List<byte[]>> byShard = cardShards.groupByReadShard(missing);
+            byShard.forEach((shard, shardHashes) -> {
+                for (int from = 0; from < shardHashes.size(); from += chunkSize) {
+                    List<byte[]> chunk = shardHashes.subList(from, Math.min(shardHashes.size(), from + chunkSize));
+                    List<CardPanMatch> matches = metrics.observe(Stage.DB_LOOKUP,
+                        () -> cardShards.readOn(shard, () -> cardRepository.findMatchesByPanHashIn(chunk)));
+                    for (CardPanMatch match : matches) {
+                        loaded.get(HEX.formatHex(match.panHash())).add(match.summary());
+                    }
+                }
+            });
+            if (byShard.size() > 1) {
+                // A card being moved can be on two shards
+                loaded.replaceAll((key, cards) -> merge(cards));
+            }
+
+            List<PanSearchResult> results = new ArrayList<>(pans.size());
+            for (int i = 0; i < pans.size(); i++) {
+                SecurePan pan = pans.get(i);
+                String key = HEX.formatHex(panHashes[i]);
+                String maskedPan = encryptionService.maskPan(pan.length(), pan.lastFour());
+                List<CardResponse> cards = cached.get(key);
+                if (cards == null) {
+                    cards = loaded.get(key).stream()
+                        .map(card -> new CardResponse(card.id(), card.cardholderName(), maskedPan,
+                            card.panToken(), card.createdTime()))
+                        .toList();
+                    // Later repeats of this PAN reuse the same responses
+                    cached.put(key, cards);
+                    panLookupCache.put(panHashes[i], cards, versions.get(key));
+                }
+                metrics.recordSearchResults(SearchType.PAN, cards.size());
+                results.add(new PanSearchResult(i, maskedPan, cards));
+            }
+            return results;
+        } finally {
+            pans.forEach(SecurePan::wipe);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdown();
+    }
+
+    // Private helper methods
+    private byte[][] hashAll(List<SecurePan> pans) {
+        if (pans.size() < parallelThreshold) {
+            return pans.stream()
+                .map(this::hash)
+                .toArray(byte[][]::new);
+        }
+        try {
+            return workerPool.submit(() -> IntStream.range(0, pans.size())
+                    .parallel()
+                    .mapToObj(i -> hash(pans.get(i)))
+                    .toArray(byte[][]::new))
+                .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardManagementException("PAN batch search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new CardManagementException("Error hashing PAN batch", e.getCause());
+        }
+    }
+
+    private static List<CardSummary> merge(List<CardSummary> cards) {
+        Set<Long> seen = new HashSet<>();
+        return cards.stream()
+            .filter(card -> seen.add(card.id()))
+            .sorted(SEARCH_ORDER)
+            .toList();
+    }
+
+    private byte[] hash(SecurePan pan) {
+        return metrics.observe(Stage.HASHING, () -> panHashService.hash(pan.digits()));
+    }
+}
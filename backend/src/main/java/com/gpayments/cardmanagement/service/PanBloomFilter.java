@@ -0,0 +1,111 @@
+package com.gpayments.cardmanagement.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free Bloom filter over PAN HMACs. The HMAC is already uniformly distributed, so its first
+// two 64-bit words drive double hashing directly instead of rehashing the key k times.
+final class PanBloomFilter {
+
+    private static final int SNAPSHOT_MAGIC = 0x50414E46;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLongArray words;
+
+    PanBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = (bits + 63) / 64;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large");
+        }
+        this.numBits = wordCount * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.words = new AtomicLongArray((int) wordCount);
+    }
+
+    boolean mightContain(byte[] panHash) {
+        ByteBuffer buffer = ByteBuffer.wrap(panHash);
+        long h1 = buffer.getLong(0);
+        long h2 = buffer.getLong(8);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(byte[] panHash) {
+        ByteBuffer buffer = ByteBuffer.wrap(panHash);
+        long h1 = buffer.getLong(0);
+        long h2 = buffer.getLong(8);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            if ((words.get(index) & mask) == 0) {
+                words.accumulateAndGet(index, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    long sizeInBytes() {
+        return numBits / 8;
+    }
+
+    // Written to a temp file and moved into place, so a crash never leaves a torn snapshot behind.
+    // Concurrent puts are fine: bits are only ever set, and the caller rescans rows above the watermark.
+    void writeSnapshot(Path path, long keyFingerprint, long watermark) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(numBits);
+            out.writeInt(numHashes);
+            out.writeLong(keyFingerprint);
+            out.writeLong(watermark);
+            for (int i = 0; i < words.length(); i++) {
+                out.writeLong(words.get(i));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Merges a snapshot into this filter and returns its watermark (highest card id it covers), or -1
+    // when the snapshot was built with different sizing or a different HMAC key and must be ignored
+    long readSnapshot(Path path, long keyFingerprint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION
+                    || in.readLong() != numBits || in.readInt() != numHashes || in.readLong() != keyFingerprint) {
+                return -1;
+            }
+            long watermark = in.readLong();
+            for (int i = 0; i < words.length(); i++) {
+                long bits = in.readLong();
+                if (bits != 0) {
+                    words.accumulateAndGet(i, bits, (current, added) -> current | added);
+                }
+            }
+            return watermark;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+// Searchable PAN index: HMAC-SHA256 keyed with a server-side pepper, so a leaked
+// table cannot be brute-forced over the (small) PAN space without the pepper
+@Service
+public class PanHashService {
+    
+    public static final int HASH_LENGTH = 32;
+    
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_PEPPER_LENGTH = 32;
+    
+    private final CryptoInstancePool<Mac> macPool;
+    
+    public PanHashService(@Value("${app.hashing.pepper}") String pepper) {
+        if (pepper == null || pepper.getBytes(StandardCharsets.UTF_8).length < MIN_PEPPER_LENGTH) {
+            throw new IllegalArgumentException("PAN hash pepper must be at least " + MIN_PEPPER_LENGTH + " bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macPool = new CryptoInstancePool<>(() -> newMac(key), Runtime.getRuntime().availableProcessors() * 4);
+    }
+    
+    public byte[] hash(CharSequence pan) {
+        if (pan == null) {
+            throw new IllegalArgumentException("PAN cannot be null");
+        }
+        
+        Mac mac = macPool.borrow();
+        // PAN digits are ASCII, so feeding chars as bytes matches their UTF-8 encoding without a copy
+        for (int i = 0; i < pan.length(); i++) {
+            mac.update((byte) pan.charAt(i));
+        }
+        byte[] digest = mac.doFinal();
+        macPool.release(mac);
+        return digest;
+    }
+    
+    public byte[] hash(byte[] panDigits) {
+        if (panDigits == null) {
+            throw new IllegalArgumentException("PAN cannot be null");
+        }
+        
+        Mac mac = macPool.borrow();
+        byte[] digest = mac.doFinal(panDigits);
+        macPool.release(mac);
+        return digest;
+    }
+    
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new CardManagementException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.gpayments.cardmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.gpayments.cardmanagement.dto.CardResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded cache of full-PAN search results, keyed by the PAN HMAC so no clear PAN is ever held.
+// Only masked CardResponse projections are cached. Entries expire after the TTL, so a card
+// created by another instance becomes visible within one TTL at most.
+@Component
+public class PanLookupCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int STRIPES = 1024;
+
+    private final Cache<String, List<CardResponse>> cache;
+    // Bumped on every invalidation, so a lookup that raced with a create cannot re-cache the stale result
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    // Ticker time of each stripe's last invalidation
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(STRIPES);
+    private final long writeSettleNanos;
+    private final Ticker ticker;
+
+    @Autowired
+    public PanLookupCache(@Value("${app.cache.pan-lookup.maximum-size:10000}") long maximumSize,
+                          @Value("${app.cache.pan-lookup.ttl:PT5M}") Duration ttl,
+                          @Value("${app.cache.pan-lookup.write-settle-time:PT0S}") Duration writeSettleTime,
+                          MeterRegistry meterRegistry) {
+        this(maximumSize, ttl, writeSettleTime, meterRegistry, Ticker.systemTicker());
+    }
+
+    PanLookupCache(long maximumSize, Duration ttl, Duration writeSettleTime, MeterRegistry meterRegistry, Ticker ticker) {
+        this.writeSettleNanos = writeSettleTime.toNanos();
+        this.ticker = ticker;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .ticker(ticker)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pan-lookup");
+    }
+
+    // Returns null on a miss
+    public List<CardResponse> get(byte[] panHash) {
+        return cache.getIfPresent(HEX.formatHex(panHash));
+    }
+
+    // Callers load outside the cache (no compute lock held across the DB round-trip) and pass the
+    // version they read before loading; the result is dropped if the PAN was invalidated meanwhile.
+    // With read replicas it is also dropped within the write settle time of an invalidation, because a
+    // replica may not have the new card yet and the stale result would otherwise be served for a TTL.
+    public void put(byte[] panHash, List<CardResponse> cards, long version) {
+        int stripe = stripe(panHash);
+        if (writeSettleNanos > 0 && versions.get(stripe) != 0
+                && ticker.read() - invalidatedAt.get(stripe) < writeSettleNanos) {
+            return;
+        }
+        String key = HEX.formatHex(panHash);
+        cache.put(key, List.copyOf(cards));
+        if (versions.get(stripe) != version) {
+            cache.invalidate(key);
+        }
+    }
+
+    public long version(byte[] panHash) {
+        return versions.get(stripe(panHash));
+    }
+
+    public void invalidate(byte[] panHash) {
+        int stripe = stripe(panHash);
+        invalidatedAt.set(stripe, ticker.read());
+        versions.incrementAndGet(stripe);
+        cache.invalidate(HEX.formatHex(panHash));
+    }
+
+    private static int stripe(byte[] panHash) {
+        // HMAC output is uniformly distributed, so the leading bytes are a good stripe index
+        return ((panHash[0] & 0xFF) << 8 | (panHash[1] & 0xFF)) & (STRIPES - 1);
+    }
+}
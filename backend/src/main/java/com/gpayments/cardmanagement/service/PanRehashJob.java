@@ -0,0 +1,106 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Backfills pan_hmac for rows written with the old unkeyed SHA-256 index, on every shard. SHA-256
+// cannot be converted to an HMAC, so each legacy PAN is decrypted and hashed again; the SHA-256
+// value is cleared as the HMAC is written.
+@Component
+public class PanRehashJob implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PanRehashJob.class);
+    
+    private final CardRepository cardRepository;
+    private final EncryptionService encryptionService;
+    private final PanHashService panHashService;
+    private final DuplicatePanDetector duplicatePanDetector;
+    private final CardShards cardShards;
+    private final boolean enabled;
+    private final int batchSize;
+    
+    public PanRehashJob(CardRepository cardRepository,
+                        EncryptionService encryptionService,
+                        PanHashService panHashService,
+                        DuplicatePanDetector duplicatePanDetector,
+                        CardShards cardShards,
+                        @Value("${app.hashing.rehash.enabled:true}") boolean enabled,
+                        @Value("${app.hashing.rehash.batch-size:1000}") int batchSize) {
+        this.cardRepository = cardRepository;
+        this.encryptionService = encryptionService;
+        this.panHashService = panHashService;
+        this.duplicatePanDetector = duplicatePanDetector;
+        this.cardShards = cardShards;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        // Runs beside normal traffic; legacy rows simply miss PAN searches until they are rehashed
+        Thread.ofPlatform().name("pan-rehash").daemon().start(this::rehashAll);
+    }
+    
+    public long rehashAll() {
+        long rehashed = 0;
+        for (int shard = 0; shard < cardShards.count(); shard++) {
+            // Rows rehashed before the SHA-256 was cleared along with the write
+            int cleared = cardShards.inTransaction(shard, false, cardRepository::clearLegacyPanHashes);
+            if (cleared > 0) {
+                logger.info("Cleared {} legacy SHA-256 PAN hashes on shard {}", cleared, shard);
+            }
+            long afterId = 0;
+            while (true) {
+                long cursor = afterId;
+                List<Card> cards = cardShards.inTransaction(shard, true,
+                    () -> cardRepository.findPageWithoutPanHash(cursor, PageRequest.ofSize(batchSize)));
+                if (cards.isEmpty()) {
+                    break;
+                }
+                rehashed += rehashBatch(shard, cards);
+                afterId = cards.get(cards.size() - 1).getId();
+            }
+        }
+        
+        if (rehashed > 0) {
+            logger.info("Rehashed {} legacy cards to HMAC-SHA256", rehashed);
+        }
+        return rehashed;
+    }
+    
+    // Only pan_hmac is written, and only while it is still null, so the job never overwrites a
+    // concurrent update of the card. Each row is its own transaction, so a failed row never rolls back
+    // the rows before it
+    private int rehashBatch(int shard, List<Card> cards) {
+        int rehashed = 0;
+        for (Card card : cards) {
+            try {
+                byte[] pan = encryptionService.decrypt(card);
+                byte[] panHash = panHashService.hash(pan);
+                Arrays.fill(pan, (byte) 0);
+                if (cardShards.inTransaction(shard, false, () -> cardRepository.assignPanHash(card.getId(), panHash)) == 1) {
+                    // These ids may sit below the duplicate filter's scan watermark, so add them directly
+                    duplicatePanDetector.recordStored(panHash);
+                    rehashed++;
+                }
+            } catch (Exception e) {
+                // Skipped rows stay null and are retried on the next start
+                logger.warn("Could not rehash card {}: {}", card.getId(), e.getMessage());
+            }
+        }
+        return rehashed;
+    }
+}
@@ -1,40 +1,104 @@
 package com.gpayments.cardmanagement.service;
 
+import com.gpayments.cardmanagement.model.CardScheme;
 import org.springframework.stereotype.Service;
 
+import java.util.BitSet;
+import java.util.List;
+
 @Service
 public class PanValidationService {
     
-    public boolean isValidPan(String pan) {
-        if (pan == null || pan.length() < 12 || pan.length() > 19) {
+    public static final int MIN_LENGTH = 12;
+    public static final int MAX_LENGTH = 19;
+    
+    // Luhn value of a digit in a doubled position: 2n, minus 9 when that is two digits
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+    
+    // Single pass, no allocation: digit check, Luhn sum and BIN prefix together
+    public boolean isValidPan(CharSequence pan) {
+        if (pan == null) {
             return false;
         }
-        if (!pan.matches("\\d+")) {
+        int length = pan.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
             return false;
         }
-        return checkLuhn(pan);
-    }
-
-
-    // Luhn Algorithm
-    // Source: https://www.geeksforgeeks.org/dsa/luhn-algorithm/
-    private boolean checkLuhn(String pan) {
+        
         int sum = 0;
-        int nDigits = pan.length();
-        boolean alternate = false;
-
-        for (int i = nDigits - 1; i >= 0; i--) {
-            int n = Integer.parseInt(pan.substring(i, i + 1));
-            if (alternate) {
-                n *= 2;
-                if (n > 9) {
-                    n = (n % 10) + 1;
-                }
+        int bin = 0;
+        boolean doubled = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
             }
-            sum += n;
-            alternate = !alternate;
+            sum += doubled ? DOUBLED[digit] : digit;
+            doubled = !doubled;
+        }
+        if (sum % 10 != 0) {
+            return false;
+        }
+        for (int i = 0; i < CardScheme.BIN_LENGTH; i++) {
+            bin = bin * 10 + (pan.charAt(i) - '0');
+        }
+        return CardScheme.fromBin(bin).acceptsLength(length);
+    }
+    
+    // Same as above for ASCII digits, e.g. a PAN read straight from a request buffer
+    public boolean isValidPan(byte[] pan) {
+        if (pan == null) {
+            return false;
+        }
+        int length = pan.length;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return false;
         }
         
-        return sum % 10 == 0;
+        int sum = 0;
+        int bin = 0;
+        boolean doubled = false;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = pan[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            sum += doubled ? DOUBLED[digit] : digit;
+            doubled = !doubled;
+        }
+        if (sum % 10 != 0) {
+            return false;
+        }
+        for (int i = 0; i < CardScheme.BIN_LENGTH; i++) {
+            bin = bin * 10 + (pan[i] - '0');
+        }
+        return CardScheme.fromBin(bin).acceptsLength(length);
+    }
+    
+    // Scheme from the BIN; callers should validate the PAN first
+    public CardScheme detectScheme(CharSequence pan) {
+        if (pan == null || pan.length() < CardScheme.BIN_LENGTH) {
+            return CardScheme.UNKNOWN;
+        }
+        int bin = 0;
+        for (int i = 0; i < CardScheme.BIN_LENGTH; i++) {
+            int digit = pan.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return CardScheme.UNKNOWN;
+            }
+            bin = bin * 10 + digit;
+        }
+        return CardScheme.fromBin(bin);
+    }
+    
+    // Bit i is set when pans.get(i) is valid
+    public BitSet validateAll(List<? extends CharSequence> pans) {
+        BitSet valid = new BitSet(pans.size());
+        for (int i = 0; i < pans.size(); i++) {
+            if (isValidPan(pans.get(i))) {
+                valid.set(i);
+            }
+        }
+        return valid;
     }
 }
@@ -0,0 +1,107 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.service.CardMetrics.Stage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Decrypts the PANs of a multi-row result. Small results are decrypted on the calling thread; from
+// parallel-threshold rows up they are split into chunks shared between the caller and a core-sized
+// pool, so one large search can use idle cores. The pool is shared by all requests, which bounds
+// decryption to one thread per core however many searches run at once. Ciphers come from
+// EncryptionService's pool, so no thread ever shares one.
+@Component
+public class ParallelDecryptor {
+
+    private final EncryptionService encryptionService;
+    private final CardMetrics metrics;
+    private final ForkJoinPool workerPool;
+    private final int parallelism;
+    private final int threshold;
+    private final int minChunkSize;
+
+    public ParallelDecryptor(EncryptionService encryptionService,
+                             CardMetrics metrics,
+                             @Value("${app.search.decryption.parallelism:0}") int parallelism,
+                             @Value("${app.search.decryption.parallel-threshold:64}") int threshold,
+                             @Value("${app.search.decryption.min-chunk-size:16}") int minChunkSize) {
+        if (threshold < 1 || minChunkSize < 1) {
+            throw new IllegalArgumentException("Decryption threshold and chunk size must be positive");
+        }
+        this.encryptionService = encryptionService;
+        this.metrics = metrics;
+        // A platform pool even in virtual-thread mode: decryption is CPU bound, as in bulk import
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.workerPool = new ForkJoinPool(this.parallelism);
+        this.threshold = threshold;
+        this.minChunkSize = minChunkSize;
+    }
+
+    // Applies reader to each card's clear PAN, in card order. The PAN array is wiped as soon as reader
+    // returns, so reader must not keep it
+    public <R> List<R> decrypt(List<Card> cards, Function<byte[], R> reader) {
+        int size = cards.size();
+        @SuppressWarnings("unchecked")
+        R[] results = (R[]) new Object[size];
+        int chunks = Math.min(parallelism, (size + minChunkSize - 1) / minChunkSize);
+        if (size < threshold || chunks < 2) {
+            decryptRange(cards, 0, size, reader, results);
+            return Arrays.asList(results);
+        }
+
+        int chunkSize = (size + chunks - 1) / chunks;
+        List<Future<?>> submitted = new ArrayList<>(chunks - 1);
+        try {
+            for (int from = chunkSize; from < size; from += chunkSize) {
+                int start = from;
+                int end = Math.min(size, from + chunkSize);
+                submitted.add(workerPool.submit(() -> decryptRange(cards, start, end, reader, results)));
+            }
+            // The caller takes the first chunk instead of idling
+            decryptRange(cards, 0, Math.min(size, chunkSize), reader, results);
+            for (Future<?> chunk : submitted) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardManagementException("Interrupted while decrypting search results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CardManagementException("Error decrypting search results", e.getCause());
+        } finally {
+            // No-ops for finished chunks; stops the rest once one has failed
+            submitted.forEach(chunk -> chunk.cancel(false));
+        }
+        return Arrays.asList(results);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdown();
+    }
+
+    // Private helper methods
+    private <R> void decryptRange(List<Card> cards, int from, int to, Function<byte[], R> reader, R[] results) {
+        for (int i = from; i < to; i++) {
+            Card card = cards.get(i);
+            byte[] pan = metrics.observe(Stage.DECRYPTION, () -> encryptionService.decrypt(card));
+            try {
+                results[i] = reader.apply(pan);
+            } finally {
+                Arrays.fill(pan, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.config.ShardRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Online resharding: spreads the slots evenly over the configured shards, for instance after shards
+// were added to app.sharding.urls. Started by running one instance with --reshard while the others keep
+// serving. Slots move one source/destination pair at a time:
+// 1. the slots are marked as moving, and after settle-time every instance writes them to the destination
+//    and reads them from both shards;
+// 2. their cards are copied to the destination, skipping cards already written there;
+// 3. the destination becomes the owner, and after another settle-time the source copies are deleted.
+// A move interrupted by a restart is finished by the next run.
+@Component
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ReshardingService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReshardingService.class);
+
+    private static final String SCAN_QUERY = "SELECT * FROM cards WHERE id > ? ORDER BY id LIMIT ?";
+
+    private record Move(int from, int to) {}
+
+    private final CardShards cardShards;
+    private final JdbcTemplate home;
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final Duration settleTime;
+    private final int batchSize;
+    private final Counter movedCards;
+
+    public ReshardingService(CardShards cardShards,
+                             ShardRoutingDataSource shardRoutingDataSource,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.sharding.resharding.settle-time:PT15S}") Duration settleTime,
+                             @Value("${app.sharding.resharding.batch-size:1000}") int batchSize) {
+        this.cardShards = cardShards;
+        shardRoutingDataSource.getShards().forEach(shard -> shards.add(new JdbcTemplate(shard)));
+        this.home = shards.get(CardShards.HOME);
+        this.settleTime = settleTime;
+        this.batchSize = batchSize;
+        this.movedCards = Counter.builder("card.sharding.cards.moved")
+            .description("Cards copied to another shard by resharding")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("reshard")) {
+            Thread.ofPlatform().name("resharding").start(this::rebalance);
+        }
+    }
+
+    // Returns the number of cards moved
+    public long rebalance() {
+        long moved = 0;
+        CardShards.Layout layout = cardShards.layout();
+        if (layout.isMoving()) {
+            logger.info("Finishing the interrupted move from shard {} to shard {}", layout.movingFrom(), layout.movingToShard());
+            moved += moveSlots(layout.movingFrom(), layout.movingToShard(), slotsMovingIn(layout));
+            layout = cardShards.layout();
+        }
+
+        // Target layout: slot modulo shard count, the same as a fresh layout
+        Map<Move, Set<Integer>> moves = new TreeMap<>(Comparator.comparingInt(Move::from).thenComparingInt(Move::to));
+        for (int slot = 0; slot < CardShards.SLOTS; slot++) {
+            int from = layout.owners()[slot];
+            int to = slot % cardShards.count();
+            if (from != to) {
+                moves.computeIfAbsent(new Move(from, to), move -> new TreeSet<>()).add(slot);
+            }
+        }
+        for (Map.Entry<Move, Set<Integer>> move : moves.entrySet()) {
+            moved += moveSlots(move.getKey().from(), move.getKey().to(), move.getValue());
+        }
+        logger.info("Resharding finished: {} cards moved, {} slot groups", moved, moves.size());
+        return moved;
+    }
+
+    long moveSlots(int from, int to, Set<Integer> slots) {
+        JdbcTemplate source = shards.get(from);
+        JdbcTemplate destination = shards.get(to);
+        Integer unhashed = source.queryForObject("SELECT COUNT(*) FROM cards WHERE pan_hmac IS NULL", Integer.class);
+        if (unhashed != null && unhashed > 0) {
+            // Their slot is unknown until the rehash job has given them a PAN HMAC
+            throw new IllegalStateException("Shard " + from + " still has " + unhashed + " cards without a PAN HMAC");
+        }
+        logger.info("Moving {} slots from shard {} to shard {}", slots.size(), from, to);
+
+        List<Object[]> marks = slots.stream()
+            .map(slot -> new Object[] {to, slot})
+            .toList();
+        home.batchUpdate("UPDATE card_shard_slots SET moving_to = ? WHERE slot = ?", marks);
+        settle();
+
+        long copied = copy(source, destination, slots);
+        movedCards.increment(copied);
+
+        home.update("UPDATE card_shard_slots SET shard = moving_to, moving_to = NULL WHERE moving_to IS NOT NULL");
+        settle();
+
+        long deleted = delete(source, slots);
+        logger.info("Moved {} slots from shard {} to shard {}: {} cards copied, {} source copies deleted",
+            slots.size(), from, to, copied, deleted);
+        return copied;
+    }
+
+    // Private helper methods
+    private void settle() {
+        cardShards.refresh();
+        try {
+            Thread.sleep(settleTime.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Resharding interrupted", e);
+        }
+    }
+
+    private long copy(JdbcTemplate source, JdbcTemplate destination, Set<Integer> slots) {
+        long copied = 0;
+        long lastId = 0;
+        List<String> columns = new ArrayList<>();
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            long[] batchLastId = {lastId};
+            int[] batchRows = {0};
+            source.query(SCAN_QUERY, resultSet -> {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                if (columns.isEmpty()) {
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        columns.add(metaData.getColumnLabel(column));
+                    }
+                }
+                batchLastId[0] = resultSet.getLong("id");
+                batchRows[0]++;
+                if (slots.contains(CardShards.slot(resultSet.getBytes("pan_hmac")))) {
+                    Object[] row = new Object[columns.size()];
+                    for (int column = 0; column < row.length; column++) {
+                        row[column] = resultSet.getObject(column + 1);
+                    }
+                    rows.add(row);
+                }
+            }, lastId, batchSize);
+
+            if (!rows.isEmpty()) {
+                // Cards created or updated on the destination since the slots started moving are newer
+                int idColumn = indexOf(columns, "id");
+                Set<Long> present = new HashSet<>(destination.queryForList(
+                    "SELECT id FROM cards WHERE id IN (" + String.join(", ", Collections.nCopies(rows.size(), "?")) + ")",
+                    Long.class, rows.stream().map(row -> row[idColumn]).toArray()));
+                List<Object[]> missing = rows.stream()
+                    .filter(row -> !present.contains(((Number) row[idColumn]).longValue()))
+                    .toList();
+                if (!missing.isEmpty()) {
+                    destination.batchUpdate("INSERT INTO cards (" + String.join(", ", columns) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")", missing);
+                    copied += missing.size();
+                }
+            }
+            lastId = batchLastId[0];
+            if (batchRows[0] < batchSize) {
+                return copied;
+            }
+        }
+    }
+
+    private long delete(JdbcTemplate source, Set<Integer> slots) {
+        long deleted = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> ids = new ArrayList<>();
+            long[] batchLastId = {lastId};
+            int[] batchRows = {0};
+            source.query("SELECT id, pan_hmac FROM cards WHERE id > ? ORDER BY id LIMIT ?", resultSet -> {
+                batchLastId[0] = resultSet.getLong("id");
+                batchRows[0]++;
+                if (slots.contains(CardShards.slot(resultSet.getBytes("pan_hmac")))) {
+                    ids.add(new Object[] {batchLastId[0]});
+                }
+            }, lastId, batchSize);
+            if (!ids.isEmpty()) {
+                source.batchUpdate("DELETE FROM cards WHERE id = ?", ids);
+                deleted += ids.size();
+            }
+            lastId = batchLastId[0];
+            if (batchRows[0] < batchSize) {
+                return deleted;
+            }
+        }
+    }
+
+    private static Set<Integer> slotsMovingIn(CardShards.Layout layout) {
+        Set<Integer> slots = new TreeSet<>();
+        for (int slot = 0; slot < CardShards.SLOTS; slot++) {
+            if (layout.movingTo()[slot] >= 0) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    private static int indexOf(List<String> columns, String column) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("cards has no " + column + " column");
+    }
+}
@@ -0,0 +1,113 @@
+package com.gpayments.cardmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token bucket per client for the search endpoints: each client may burst up to `burst` searches and
+// is then held to `permits-per-second`. Buckets of idle clients are evicted once they would be full again.
+// Searches that do the work of many (batch PAN search) are charged extra after admission, which can
+// leave the bucket in debt until the client has paid it back.
+@Component
+public class SearchRateLimiter {
+
+    private final boolean enabled;
+    private final double permitsPerNano;
+    private final double burst;
+    private final Ticker ticker;
+    private final Cache<String, TokenBucket> buckets;
+
+    @Autowired
+    public SearchRateLimiter(@Value("${app.search.rate-limit.enabled:true}") boolean enabled,
+                             @Value("${app.search.rate-limit.permits-per-second:50}") double permitsPerSecond,
+                             @Value("${app.search.rate-limit.burst:100}") int burst,
+                             @Value("${app.search.rate-limit.maximum-clients:100000}") long maximumClients,
+                             MeterRegistry meterRegistry) {
+        this(enabled, permitsPerSecond, burst, maximumClients, meterRegistry, Ticker.systemTicker());
+    }
+
+    SearchRateLimiter(boolean enabled, double permitsPerSecond, int burst, long maximumClients,
+                      MeterRegistry meterRegistry, Ticker ticker) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Search rate limit and burst must be positive");
+        }
+        this.enabled = enabled;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maximumClients)
+            .expireAfterAccess(Duration.ofNanos((long) Math.ceil(burst / permitsPerNano)))
+            .ticker(ticker)
+            .build();
+        Gauge.builder("card.search.rate-limit.clients", buckets, Cache::estimatedSize)
+            .description("Clients with a search rate-limit bucket")
+            .register(meterRegistry);
+    }
+
+    // Zero when the search may go ahead, otherwise the nanoseconds until the client's next permit
+    public long tryAcquire(String clientKey) {
+        if (!enabled) {
+            return 0;
+        }
+        return buckets.get(clientKey, key -> new TokenBucket(burst, ticker.read())).tryAcquire(ticker.read());
+    }
+
+    // Extra permits for a search already admitted by tryAcquire, e.g. one per additional PAN of a batch
+    public void charge(String clientKey, int permits) {
+        if (!enabled || permits <= 0) {
+            return;
+        }
+        buckets.get(clientKey, key -> new TokenBucket(burst, ticker.read())).charge(ticker.read(), permits);
+    }
+
+    private final class TokenBucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        long tryAcquire(long now) {
+            lock.lock();
+            try {
+                refill(now);
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return 0;
+                }
+                return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void charge(long now, int permits) {
+            lock.lock();
+            try {
+                refill(now);
+                tokens -= permits;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+        }
+    }
+}
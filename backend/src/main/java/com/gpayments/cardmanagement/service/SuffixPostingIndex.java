@@ -0,0 +1,256 @@
+package com.gpayments.cardmanagement.service;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Posting lists from a 4-digit PAN suffix (0-9999) to the sorted ids of the cards ending in it.
+// Each list is an immutable long[] swapped in by compare-and-set, so lookups are a plain array read
+// with no locking or boxing, and writers copy only the one list they change.
+final class SuffixPostingIndex {
+
+    static final int SUFFIXES = 10_000;
+
+    private static final long[] EMPTY = new long[0];
+    private static final int SNAPSHOT_MAGIC = 0x4C343158;
+    private static final int SNAPSHOT_VERSION = 2;
+    // magic, version, database id, watermark, complete-before time, id count, then one int count per
+    // suffix; ids start 8-byte aligned
+    private static final int HEADER_BYTES = 4 + 4 + 16 + 8 + 8 + 8 + SUFFIXES * 4;
+
+    // What a snapshot covers: the database it was read from, the highest card id read, and the
+    // created_time before which every card was indexed
+    record Coverage(UUID databaseId, long watermark, LocalDateTime completeBefore) {}
+
+    private final AtomicReferenceArray<long[]> postings = new AtomicReferenceArray<>(SUFFIXES);
+
+    SuffixPostingIndex() {
+        for (int i = 0; i < SUFFIXES; i++) {
+            postings.set(i, EMPTY);
+        }
+    }
+
+    // The live list, sorted ascending: read it, never modify it
+    long[] get(int suffix) {
+        return postings.get(suffix);
+    }
+
+    void add(int suffix, long id) {
+        while (true) {
+            long[] current = postings.get(suffix);
+            int position = Arrays.binarySearch(current, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = id;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            if (postings.compareAndSet(suffix, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    // Merges a batch into the index, one copy per touched suffix however many ids it adds
+    void addAll(Builder batch) {
+        for (int suffix = 0; suffix < SUFFIXES; suffix++) {
+            long[] added = batch.sorted(suffix);
+            if (added.length == 0) {
+                continue;
+            }
+            while (true) {
+                long[] current = postings.get(suffix);
+                long[] merged = current.length == 0 ? added : merge(current, added);
+                if (merged == current || postings.compareAndSet(suffix, current, merged)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (int i = 0; i < SUFFIXES; i++) {
+            size += postings.get(i).length;
+        }
+        return size;
+    }
+
+    // Memory-mapped and written to a temp file that is moved into place, so a crash never leaves a torn
+    // snapshot. Concurrent adds are fine: the caller rescans rows above the watermark on restore.
+    void writeSnapshot(Path path, Coverage coverage) throws IOException {
+        long[][] lists = new long[SUFFIXES][];
+        long total = 0;
+        for (int i = 0; i < SUFFIXES; i++) {
+            lists[i] = postings.get(i);
+            total += lists[i].length;
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + total * 8);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                .putLong(coverage.databaseId().getMostSignificantBits())
+                .putLong(coverage.databaseId().getLeastSignificantBits())
+                .putLong(coverage.watermark())
+                .putLong(coverage.completeBefore().toInstant(ZoneOffset.UTC).toEpochMilli())
+                .putLong(total);
+            IntBuffer counts = buffer.asIntBuffer();
+            for (long[] list : lists) {
+                counts.put(list.length);
+            }
+            LongBuffer ids = buffer.position(HEADER_BYTES).asLongBuffer();
+            for (long[] list : lists) {
+                ids.put(list);
+            }
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Adds a snapshot's ids to the batch and returns what it covers, or null when the file is not a
+    // complete snapshot of this format read from this database and must be ignored
+    static Coverage readSnapshot(Path path, UUID databaseId, Builder batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            // Ids of another database (an in-memory one that restarted empty) would point at unrelated cards
+            if (!new UUID(buffer.getLong(), buffer.getLong()).equals(databaseId)) {
+                return null;
+            }
+            long watermark = buffer.getLong();
+            LocalDateTime completeBefore = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneOffset.UTC);
+            long total = buffer.getLong();
+            if (fileSize != HEADER_BYTES + total * 8) {
+                return null;
+            }
+            int[] counts = new int[SUFFIXES];
+            buffer.asIntBuffer().get(counts);
+            LongBuffer ids = buffer.position(HEADER_BYTES).asLongBuffer();
+            for (int suffix = 0; suffix < SUFFIXES; suffix++) {
+                if (counts[suffix] < 0 || counts[suffix] > ids.remaining()) {
+                    return null;
+                }
+                long[] list = new long[counts[suffix]];
+                ids.get(list);
+                batch.appendAll(suffix, list);
+            }
+            return new Coverage(databaseId, watermark, completeBefore);
+        }
+    }
+
+    // Parses a stored last_four_digits value; -1 for anything that is not exactly four digits
+    static int suffix(CharSequence lastFourDigits) {
+        if (lastFourDigits == null || lastFourDigits.length() != 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = lastFourDigits.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Sorted, de-duplicated union of two sorted lists; returns current itself when nothing is new
+    private static long[] merge(long[] current, long[] added) {
+        long[] merged = new long[current.length + added.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < current.length && j < added.length) {
+            if (current[i] < added[j]) {
+                merged[n++] = current[i++];
+            } else if (current[i] > added[j]) {
+                merged[n++] = added[j++];
+            } else {
+                merged[n++] = current[i++];
+                j++;
+            }
+        }
+        while (i < current.length) {
+            merged[n++] = current[i++];
+        }
+        while (j < added.length) {
+            merged[n++] = added[j++];
+        }
+        if (n == current.length) {
+            return current;
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    // Single-threaded accumulator for bulk loads, so building the index does not copy a list per row
+    static final class Builder {
+
+        private final long[][] lists = new long[SUFFIXES][];
+        private final int[] sizes = new int[SUFFIXES];
+
+        void append(int suffix, long id) {
+            long[] list = lists[suffix];
+            if (list == null) {
+                list = lists[suffix] = new long[8];
+            } else if (sizes[suffix] == list.length) {
+                list = lists[suffix] = Arrays.copyOf(list, list.length * 2);
+            }
+            list[sizes[suffix]++] = id;
+        }
+
+        void appendAll(int suffix, long[] ids) {
+            if (ids.length == 0) {
+                return;
+            }
+            long[] list = lists[suffix];
+            int size = sizes[suffix];
+            if (list == null || list.length - size < ids.length) {
+                list = lists[suffix] = Arrays.copyOf(list == null ? EMPTY : list, Math.max(size + ids.length, size * 2));
+            }
+            System.arraycopy(ids, 0, list, size, ids.length);
+            sizes[suffix] = size + ids.length;
+        }
+
+        private long[] sorted(int suffix) {
+            int size = sizes[suffix];
+            if (size == 0) {
+                return EMPTY;
+            }
+            long[] list = Arrays.copyOf(lists[suffix], size);
+            Arrays.sort(list);
+            int unique = 1;
+            for (int i = 1; i < size; i++) {
+                if (list[i] != list[unique - 1]) {
+                    list[unique++] = list[i];
+                }
+            }
+            return unique == size ? list : Arrays.copyOf(list, unique);
+        }
+    }
+}
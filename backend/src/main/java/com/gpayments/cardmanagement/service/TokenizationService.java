@@ -0,0 +1,251 @@
+package com.gpayments.cardmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gpayments.cardmanagement.dto.TokenResponse;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Issues surrogate tokens for PANs so downstream systems can reference a card without holding or
+// resolving the PAN. Tokens are random vault tokens, not derived from the PAN: same length and last
+// four digits, Luhn-valid, and always starting with 9 (no card network issues PANs there), so a
+// token keeps working in systems that validate PAN format. Token -> card id lookups are served
+// from a bounded in-memory index and fall back to the unique pan_token index in the database (on every
+// shard, since a token says nothing about its card's PAN HMAC). Long tokens are not checked for
+// collisions before the insert; a write that hits the unique index is retried with fresh tokens.
+@Service
+public class TokenizationService {
+
+    static final char TOKEN_PREFIX = '9';
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenizationService.class);
+
+    private static final int[] DOUBLED = {0, 2, 4, 6, 8, 1, 3, 5, 7, 9};
+    private static final int MAX_ATTEMPTS = 100;
+    // Below this many random digits collisions are likely enough to check the database before issuing
+    private static final int MIN_UNCHECKED_RANDOM_DIGITS = 9;
+    // Writes retried after a token collision; each retry is about as unlikely to collide as the first write
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final String TOKEN_INDEX = "idx_cards_pan_token";
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final Comparator<Card> LATEST_FIRST =
+        Comparator.comparing(Card::getCreatedTime).thenComparing(Card::getId).reversed();
+
+    private final CardRepository cardRepository;
+    private final PanHashService panHashService;
+    private final PanValidationService panValidationService;
+    private final EncryptionService encryptionService;
+    private final CardShards cardShards;
+    private final SecureRandom random = new SecureRandom();
+    // Tokens start with 9, so as unsigned longs they never collide across lengths
+    private final Cache<Long, Long> index;
+
+    public TokenizationService(CardRepository cardRepository,
+                               PanHashService panHashService,
+                               PanValidationService panValidationService,
+                               EncryptionService encryptionService,
+                               CardShards cardShards,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.tokens.index.maximum-size:1000000}") long indexMaximumSize) {
+        this.cardRepository = cardRepository;
+        this.panHashService = panHashService;
+        this.panValidationService = panValidationService;
+        this.encryptionService = encryptionService;
+        this.cardShards = cardShards;
+        this.index = Caffeine.newBuilder()
+            .maximumSize(indexMaximumSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "pan-token-index");
+    }
+
+    // A fresh token for a PAN about to be stored; uniqueness is finally enforced by the unique index
+    public String generateToken(CharSequence pan) {
+        return generateToken(pan.length(), pan, token -> token.contentEquals(pan));
+    }
+
+    // Runs a write of new cards, issuing the cards fresh tokens and retrying when one collided with
+    // another card's token on the unique index
+    public <T> T withUniqueTokens(Collection<Card> created, Supplier<T> write) {
+        return retryingCollisions(write, () -> created.forEach(card -> {
+            // The id of the rolled-back persist must not survive, or the retry would merge instead of insert
+            card.setId(null);
+            card.setPanToken(reissueToken(card));
+        }));
+    }
+
+    // Called once a card with a token has been committed
+    public void register(Card card) {
+        if (card.getPanToken() != null && card.getId() != null) {
+            index.put(key(card.getPanToken()), card.getId());
+        }
+    }
+
+    // Token of the most recent card stored for this PAN, issuing one for cards created before tokenization
+    public Optional<TokenResponse> tokenize(CharSequence pan) {
+        if (!panValidationService.isValidPan(pan)) {
+            throw new IllegalArgumentException("Invalid PAN");
+        }
+        byte[] panHash = panHashService.hash(pan);
+        List<Card> stored = cardShards.readByPanHash(panHash,
+            () -> cardRepository.findFirstByPanHashOrderByCreatedTimeDescIdDesc(panHash).stream().toList(),
+            Card::getId, LATEST_FIRST);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Card card = stored.get(0);
+        String token = card.getPanToken();
+        if (token == null) {
+            String[] issued = {generateToken(pan)};
+            int shard = cardShards.writeShard(panHash);
+            Integer updated = retryingCollisions(
+                () -> cardShards.inTransaction(shard, false, () -> cardRepository.assignPanToken(card.getId(), issued[0])),
+                () -> issued[0] = generateToken(pan));
+            // Another request may have issued one first; its token wins
+            token = updated != null && updated == 1
+                ? issued[0]
+                : cardShards.inTransaction(shard, true, () -> cardRepository.findPanTokenById(card.getId())).orElseThrow();
+        }
+        index.put(key(token), card.getId());
+        return Optional.of(response(token, card.getId()));
+    }
+
+    public Optional<TokenResponse> detokenize(String token) {
+        if (!isWellFormed(token)) {
+            throw new IllegalArgumentException("Invalid token");
+        }
+        long key = key(token);
+        Long cardId = index.getIfPresent(key);
+        if (cardId == null) {
+            cardId = findCardId(token).orElse(null);
+            if (cardId == null) {
+                return Optional.empty();
+            }
+            index.put(key, cardId);
+        }
+        return Optional.of(response(token, cardId));
+    }
+
+    // Private helper methods
+    // The token takes its last four digits from the end of lastFour, which may be the whole PAN
+    private String generateToken(int length, CharSequence lastFour, Predicate<String> isPan) {
+        char[] digits = new char[length];
+        boolean checkDatabase = length - 6 < MIN_UNCHECKED_RANDOM_DIGITS;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            digits[0] = TOKEN_PREFIX;
+            for (int i = 1; i < length - 5; i++) {
+                digits[i] = (char) ('0' + random.nextInt(10));
+            }
+            for (int i = 1; i <= 4; i++) {
+                digits[length - i] = lastFour.charAt(lastFour.length() - i);
+            }
+            // The last four are fixed, so the digit just before them makes the token Luhn-valid
+            digits[length - 5] = luhnDigit(digits, length - 5);
+
+            String token = new String(digits);
+            if (!isPan.test(token) && index.getIfPresent(key(token)) == null
+                    && !(checkDatabase && findCardId(token).isPresent())) {
+                return token;
+            }
+        }
+        throw new IllegalStateException("Could not generate a unique token");
+    }
+
+    // The PAN is no longer at hand once the card is prepared, so the token is compared with it by HMAC
+    private String reissueToken(Card card) {
+        return generateToken(card.getPanLength(), card.getLastFourDigits(),
+            token -> Arrays.equals(panHashService.hash(token), card.getPanHash()));
+    }
+
+    private <T> T retryingCollisions(Supplier<T> write, Runnable reissue) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS || !isTokenCollision(e)) {
+                    throw e;
+                }
+                logger.warn("PAN token collided with an existing card's token, retrying with a new token");
+                reissue.run();
+            }
+        }
+    }
+
+    // Only a unique violation of the pan_token index can be fixed by a new token. The constraint name is
+    // the one Hibernate's dialect extracted (H2 reports it with the schema and the indexed columns)
+    private static boolean isTokenCollision(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return UNIQUE_VIOLATION.equals(violation.getSQLState())
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(TOKEN_INDEX);
+            }
+        }
+        return false;
+    }
+
+    private Optional<Long> findCardId(String token) {
+        return cardShards.readAll(() -> cardRepository.findIdByPanToken(token).stream().toList(),
+            id -> id, Comparator.naturalOrder()).stream().findFirst();
+    }
+
+    private TokenResponse response(String token, Long cardId) {
+        // Length and last four are shared with the PAN, so the masked PAN comes from the token itself
+        return new TokenResponse(token, cardId,
+            encryptionService.maskPan(token.length(), token.substring(token.length() - 4)));
+    }
+
+    private static boolean isWellFormed(String token) {
+        if (token == null || token.length() < PanValidationService.MIN_LENGTH
+                || token.length() > PanValidationService.MAX_LENGTH || token.charAt(0) != TOKEN_PREFIX) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long key(String token) {
+        return Long.parseUnsignedLong(token);
+    }
+
+    // The digit at position that makes the whole number pass the Luhn check
+    static char luhnDigit(char[] digits, int position) {
+        int sum = 0;
+        for (int i = 0; i < digits.length; i++) {
+            if (i != position) {
+                int digit = digits[i] - '0';
+                sum += (digits.length - 1 - i) % 2 == 1 ? DOUBLED[digit] : digit;
+            }
+        }
+        boolean doubled = (digits.length - 1 - position) % 2 == 1;
+        for (int digit = 0; digit < 10; digit++) {
+            if ((sum + (doubled ? DOUBLED[digit] : digit)) % 10 == 0) {
+                return (char) ('0' + digit);
+            }
+        }
+        throw new IllegalStateException("No Luhn digit");
+    }
+}
@@ -0,0 +1,7 @@
+-- PAN lookups move from a Base64 SHA-256 string to a 32-byte keyed HMAC-SHA256.
+-- pan_hash is kept (nullable) for existing rows; PanRehashJob fills pan_hmac for them.
+ALTER TABLE cards ADD COLUMN pan_hmac VARBINARY(32);
+ALTER TABLE cards ALTER COLUMN pan_hash DROP NOT NULL;
+
+DROP INDEX idx_cards_pan_hash;
+CREATE INDEX idx_cards_pan_hmac ON cards (pan_hmac);
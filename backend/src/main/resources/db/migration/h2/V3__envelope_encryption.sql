@@ -0,0 +1,18 @@
+-- AES-256-GCM envelope encryption: data keys are stored wrapped by the keystore master key,
+-- and each card records its nonce, binary ciphertext and the data key that produced it.
+CREATE TABLE data_keys (
+    id           INTEGER        GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wrapped_key  VARBINARY(128) NOT NULL,
+    active       BOOLEAN        NOT NULL,
+    created_time TIMESTAMP      NOT NULL
+);
+
+ALTER TABLE cards ADD COLUMN pan_ciphertext VARBINARY(64);
+ALTER TABLE cards ADD COLUMN pan_nonce VARBINARY(12);
+ALTER TABLE cards ADD COLUMN data_key_id INTEGER;
+
+-- Legacy AES-CBC ciphertext stays readable until KeyRotationService re-encrypts the row
+ALTER TABLE cards ALTER COLUMN encrypted_pan DROP NOT NULL;
+
+-- Was always written as an empty string; the nonce now lives in pan_nonce
+ALTER TABLE cards DROP COLUMN iv;
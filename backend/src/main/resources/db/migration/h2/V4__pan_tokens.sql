@@ -0,0 +1,5 @@
+-- Surrogate PAN tokens: same length and last four digits as the PAN, Luhn-valid, random otherwise.
+-- Existing rows get a token the first time one is requested through /api/tokens.
+ALTER TABLE cards ADD COLUMN pan_token VARCHAR(19);
+
+CREATE UNIQUE INDEX idx_cards_pan_token ON cards (pan_token);
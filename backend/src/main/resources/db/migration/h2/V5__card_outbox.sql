@@ -0,0 +1,12 @@
+-- Transactional outbox of card events. Rows are written in the same transaction as the card, drained
+-- in id order by CardEventRelay and deleted once the event sink has accepted them.
+CREATE TABLE card_outbox (
+    id                BIGINT       GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type        VARCHAR(16)  NOT NULL,
+    card_id           BIGINT       NOT NULL,
+    cardholder_name   VARCHAR(255) NOT NULL,
+    masked_pan        VARCHAR(19),
+    pan_token         VARCHAR(19),
+    card_created_time TIMESTAMP,
+    occurred_time     TIMESTAMP    NOT NULL
+);
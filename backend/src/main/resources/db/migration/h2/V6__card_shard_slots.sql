@@ -0,0 +1,7 @@
+-- Shard layout for app.sharding: PAN hash prefix slot -> shard, read from the home shard (shard 0) and
+-- unused without sharding. moving_to is set while the resharding tool copies a slot to another shard.
+CREATE TABLE card_shard_slots (
+    slot      INTEGER NOT NULL PRIMARY KEY,
+    shard     INTEGER NOT NULL,
+    moving_to INTEGER
+);
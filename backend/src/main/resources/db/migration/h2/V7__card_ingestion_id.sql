@@ -0,0 +1,5 @@
+-- Tracking ID of the asynchronous ingestion that created the card, so a journal replayed after a crash
+-- between the commit and its completion record finds the card instead of storing it again.
+ALTER TABLE cards ADD COLUMN ingestion_id UUID;
+
+CREATE UNIQUE INDEX idx_cards_ingestion_id ON cards (ingestion_id);
@@ -0,0 +1,7 @@
+-- Random identity of this database, so files kept beside it (the last-four index snapshot) can tell when
+-- they were built from another one, such as the previous run's in-memory database.
+CREATE TABLE database_identity (
+    id UUID NOT NULL PRIMARY KEY
+);
+
+INSERT INTO database_identity (id) VALUES (RANDOM_UUID());
@@ -0,0 +1,19 @@
+-- Card store schema. Ids come from a pooled sequence so Hibernate can batch inserts.
+CREATE SEQUENCE card_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE cards (
+    id               BIGINT       NOT NULL PRIMARY KEY,
+    cardholder_name  VARCHAR(255) NOT NULL,
+    encrypted_pan    TEXT         NOT NULL,
+    pan_hash         VARCHAR(64)  NOT NULL,
+    last_four_digits VARCHAR(4)   NOT NULL,
+    pan_length       INTEGER,
+    iv               VARCHAR(255),
+    created_time     TIMESTAMP
+);
+
+-- Exact-match PAN lookups
+CREATE INDEX idx_cards_pan_hash ON cards (pan_hash);
+
+-- Last-four lookups, returned in creation order straight from the index
+CREATE INDEX idx_cards_last_four_created ON cards (last_four_digits, created_time, id);
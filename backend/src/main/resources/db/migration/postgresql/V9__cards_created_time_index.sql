@@ -0,0 +1,3 @@
+-- Lets the last-four index re-read recently created cards, whose ids can sit far below the highest id
+-- already seen when they come from a sequence block another instance held for a while.
+CREATE INDEX idx_cards_created_time ON cards (created_time, id);
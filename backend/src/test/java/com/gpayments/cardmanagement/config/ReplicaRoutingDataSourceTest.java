@@ -0,0 +1,106 @@
+package com.gpayments.cardmanagement.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+    private DataSource secondReplica;
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        DataSource firstReplica = mock(DataSource.class);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        secondReplica = mock(DataSource.class);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+
+        tracker = new ReadYourWritesTracker(MAX_LAG, 100, nanos::get);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), tracker,
+            new SimpleMeterRegistry());
+        dataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        tracker.end();
+    }
+
+    @Test
+    void Should_UsePrimary_When_NotReadOnly() throws SQLException {
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void Should_AlternateReplicas_When_ReadOnly() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+        assertSame(secondReplicaConnection, dataSource.getConnection());
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void Should_ReadFromPrimary_When_ClientWroteWithinMaxLag() throws SQLException {
+        tracker.begin("key:client");
+        dataSource.getConnection();
+        tracker.end();
+
+        tracker.begin("key:client");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(primaryConnection, dataSource.getConnection());
+        tracker.end();
+
+        tracker.begin("key:other");
+        assertNotSame(primaryConnection, dataSource.getConnection());
+        tracker.end();
+
+        nanos.addAndGet(MAX_LAG.plusSeconds(1).toNanos());
+        tracker.begin("key:client");
+        assertNotSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void Should_ReadFromPrimary_When_SameRequestAlreadyWrote() throws SQLException {
+        tracker.begin("key:client");
+        dataSource.getConnection();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void Should_FallBackToPrimary_When_ReplicaUnavailable() throws SQLException {
+        when(secondReplica.getConnection()).thenThrow(new SQLTransientConnectionException("timed out"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(firstReplicaConnection, dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+}
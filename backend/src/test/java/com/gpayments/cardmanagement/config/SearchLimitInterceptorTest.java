@@ -0,0 +1,30 @@
+package com.gpayments.cardmanagement.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchLimitInterceptorTest {
+
+    @Test
+    void Should_KeyOnRemoteAddress_When_ApiKeyHeaderSent() {
+        HttpServletRequest first = request("10.0.0.1", "key-1");
+        HttpServletRequest second = request("10.0.0.1", "key-2");
+
+        // A caller choosing a new header value per request must not get a new bucket
+        assertEquals(SearchLimitInterceptor.clientKey(first), SearchLimitInterceptor.clientKey(second));
+        assertNotEquals(SearchLimitInterceptor.clientKey(first),
+            SearchLimitInterceptor.clientKey(request("10.0.0.2", "key-1")));
+    }
+
+    // Private helper methods
+    private static HttpServletRequest request(String remoteAddress, String apiKey) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn(remoteAddress);
+        when(request.getHeader("X-API-Key")).thenReturn(apiKey);
+        return request;
+    }
+}
@@ -0,0 +1,82 @@
+package com.gpayments.cardmanagement.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedReplicationTest {
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private SimulatedReplication replication;
+
+    @BeforeEach
+    void setUp() {
+        // Fresh pair of in-memory databases per test
+        String name = UUID.randomUUID().toString();
+        DriverManagerDataSource primaryDataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:primary-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        DriverManagerDataSource replicaDataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:replica-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(primaryDataSource).locations("classpath:db/migration/h2").load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, List.of(replicaDataSource),
+            new ReadYourWritesTracker(Duration.ofSeconds(5), 100), new SimpleMeterRegistry());
+        replication = new SimulatedReplication(routing, List.of("classpath:db/migration/{vendor}"), 100, 2);
+    }
+
+    @Test
+    void Should_MigrateReplica_When_Created() {
+        assertEquals(0, count(replica));
+    }
+
+    @Test
+    void Should_CopyNewRowsOnlyOnReplicate_When_PrimaryWritten() {
+        insert(1);
+        insert(2);
+        insert(3);
+        assertEquals(0, count(replica));
+
+        replication.replicate();
+
+        assertEquals(3, count(replica));
+        assertEquals("Card 2", replica.queryForObject("SELECT cardholder_name FROM cards WHERE id = 2", String.class));
+    }
+
+    @Test
+    void Should_CopyLateCommittedRows_When_BelowLastCopiedId() {
+        insert(1);
+        insert(50);
+        replication.replicate();
+
+        // Allocated earlier from a pooled sequence block but committed after the last copy
+        insert(2);
+        insert(51);
+        replication.replicate();
+
+        assertEquals(4, count(replica));
+        replication.replicate();
+        assertEquals(4, count(replica));
+    }
+
+    // Private helper methods
+    private void insert(long id) {
+        primary.update("INSERT INTO cards (id, cardholder_name, last_four_digits, pan_length, created_time) "
+            + "VALUES (?, ?, '1111', 16, CURRENT_TIMESTAMP)", id, "Card " + id);
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cards", Integer.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gpayments.cardmanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AtomicLong nanos = new AtomicLong(1);
+
+    @Test
+    void Should_RejectImmediately_When_LimitReached() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(limiter.tryAcquire());
+        first.onIgnore();
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void Should_IncreaseLimit_When_LatencyHoldsAtFullUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        for (int round = 0; round < 20; round++) {
+            runRound(limiter, limiter.getLimit(), FAST);
+        }
+
+        assertTrue(limiter.getLimit() > 2, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void Should_DecreaseLimit_When_LatencyRisesAboveTolerance() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 2, 40);
+        for (int round = 0; round < 10; round++) {
+            runRound(limiter, 20, FAST);
+        }
+        int before = limiter.getLimit();
+
+        for (int round = 0; round < 10; round++) {
+            runRound(limiter, limiter.getLimit(), FAST * 10);
+        }
+
+        assertTrue(limiter.getLimit() < before, "limit was " + limiter.getLimit() + ", before " + before);
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    void Should_DecreaseLimit_When_SearchesAreDropped() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 2, 20);
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        nanos.addAndGet(FAST);
+        permit.onDropped();
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void Should_CountPermitOnce_When_ReleasedTwice() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        permit.onIgnore();
+        permit.onIgnore();
+
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(true, initial, min, max, 2.0, Duration.ofSeconds(1), 0.9,
+            new SimpleMeterRegistry(), nanos::get);
+    }
+
+    // Admits up to count searches together and completes them all after latency
+    private void runRound(AdaptiveConcurrencyLimiter limiter, int count, long latency) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+            if (permit != null) {
+                permits.add(permit);
+            }
+        }
+        nanos.addAndGet(latency);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::onSuccess);
+    }
+}
@@ -0,0 +1,54 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardBatchWriterTest {
+
+    @Test
+    void Should_FailBatch_When_DuplicateCheckFails() {
+        CardRepository cardRepository = mock(CardRepository.class);
+        DuplicatePanDetector duplicatePanDetector = mock(DuplicatePanDetector.class);
+        when(duplicatePanDetector.policy()).thenReturn(DuplicatePolicy.REJECT);
+        when(duplicatePanDetector.withLock(any(), any())).thenAnswer(invocation ->
+            invocation.<Supplier<?>>getArgument(1).get());
+        when(duplicatePanDetector.findExisting(any())).thenThrow(new QueryTimeoutException("timeout"));
+        @SuppressWarnings("unchecked")
+        CardShards cardShards = new CardShards(mock(ObjectProvider.class), mock(PlatformTransactionManager.class), null);
+        CardBatchWriter writer = new CardBatchWriter(cardRepository, mock(PanLookupCache.class), duplicatePanDetector,
+            mock(TokenizationService.class), mock(LastFourIndex.class), mock(CardEventOutbox.class), cardShards);
+        Card card = card("1111");
+
+        CardBatchWriter.BatchWrite write = writer.write(List.of(card));
+
+        // Reported like a failed write, so callers retry or fail the card instead of losing it
+        assertEquals("Batch write failed", write.error());
+        assertEquals(CardBatchWriter.Outcome.FAILED, write.resolutions().get(0).outcome());
+        verify(cardRepository, never()).saveAll(any());
+    }
+
+    // Private helper methods
+    private static Card card(String lastFourDigits) {
+        Card card = new Card();
+        card.setCardholderName("Alice");
+        card.setPanHash(lastFourDigits.repeat(8).getBytes(StandardCharsets.US_ASCII));
+        card.setLastFourDigits(lastFourDigits);
+        card.setPanLength(16);
+        return card;
+    }
+}
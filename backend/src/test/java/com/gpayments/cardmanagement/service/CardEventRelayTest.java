@@ -0,0 +1,116 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardEvent;
+import com.gpayments.cardmanagement.model.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CardEventRelayTest {
+
+    private final List<CardEvent> published = new ArrayList<>();
+    private boolean sinkDown;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CardEventOutbox outbox;
+    private CardEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:events-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        EncryptionService encryptionService = new EncryptionService(mock(DataKeyService.class), "MySecretKey123456789012345678901", "");
+        outbox = new CardEventOutbox(jdbcTemplate, encryptionService, true);
+        CardEventSink sink = events -> {
+            if (sinkDown) {
+                throw new IOException("sink unavailable");
+            }
+            published.addAll(events);
+        };
+        @SuppressWarnings("unchecked")
+        CardShards cardShards = new CardShards(mock(ObjectProvider.class), transactionTemplate.getTransactionManager(), jdbcTemplate);
+        relay = new CardEventRelay(jdbcTemplate, cardShards, sink, new SimpleMeterRegistry(), true, 2);
+    }
+
+    @Test
+    void Should_PublishInOutboxOrderAndDelete_When_Relayed() {
+        transactionTemplate.executeWithoutResult(status -> outbox.append(List.of(
+            new CardEventOutbox.Entry(CardEvent.Type.CREATED, card(1L, "Jane")),
+            new CardEventOutbox.Entry(CardEvent.Type.CREATED, card(2L, "John")),
+            new CardEventOutbox.Entry(CardEvent.Type.UPDATED, card(1L, "Jane Doe")))));
+
+        assertEquals(3, relay.relayPending());
+
+        assertEquals(List.of(1L, 2L, 1L), published.stream().map(CardEvent::cardId).toList());
+        assertEquals(List.of(CardEvent.Type.CREATED, CardEvent.Type.CREATED, CardEvent.Type.UPDATED),
+            published.stream().map(CardEvent::type).toList());
+        assertEquals("Jane Doe", published.get(2).cardholderName());
+        assertEquals("************1111", published.get(0).maskedPan());
+        assertTrue(published.get(0).eventId() < published.get(2).eventId());
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void Should_RedeliverBatch_When_SinkFailed() {
+        transactionTemplate.executeWithoutResult(status -> outbox.append(CardEvent.Type.CREATED, card(1L, "Jane")));
+        sinkDown = true;
+
+        relay.relay();
+
+        assertEquals(1, pending());
+        sinkDown = false;
+        relay.relay();
+        assertEquals(List.of(1L), published.stream().map(CardEvent::cardId).toList());
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void Should_DropEvents_When_CardTransactionRolledBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            outbox.append(CardEvent.Type.CREATED, card(1L, "Jane"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, relay.relayPending());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void Should_Throw_When_AppendedOutsideTransaction() {
+        assertThrows(IllegalStateException.class, () -> outbox.append(CardEvent.Type.CREATED, card(1L, "Jane")));
+    }
+
+    // Private helper methods
+    private int pending() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_outbox", Integer.class);
+    }
+
+    private static Card card(Long id, String cardholderName) {
+        Card card = new Card();
+        card.setId(id);
+        card.setCardholderName(cardholderName);
+        card.setLastFourDigits("1111");
+        card.setPanLength(16);
+        card.setCreatedTime(LocalDateTime.now());
+        return card;
+    }
+}
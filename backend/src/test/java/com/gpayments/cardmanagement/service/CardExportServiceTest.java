@@ -0,0 +1,88 @@
+package com.gpayments.cardmanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gpayments.cardmanagement.dto.CardSummary;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CardExportServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private CardRepository cardRepository;
+    private CardExportService cardExportService;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        EncryptionService encryptionService = mock(EncryptionService.class);
+        when(encryptionService.maskPan(16, "1111")).thenReturn("************1111");
+        cardExportService = new CardExportService(cardRepository, mock(CardShards.class), encryptionService, objectMapper);
+    }
+
+    @Test
+    void Should_WriteOneLinePerCard_When_ExportingNdjson() throws Exception {
+        when(cardRepository.streamSummariesAfterId(10L)).thenReturn(Stream.of(
+            new CardSummary(11L, "John Doe", "1111", 16, CREATED, "9123456789011111"),
+            new CardSummary(12L, "Legacy Card", "2222", null, CREATED, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = cardExportService.export(10L, 0, CardExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, exported);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(11L, first.get("id").asLong());
+        assertEquals("************1111", first.get("maskedPan").asText());
+        assertEquals("9123456789011111", first.get("token").asText());
+        JsonNode legacy = objectMapper.readTree(lines[1]);
+        assertTrue(legacy.get("maskedPan").isNull());
+        assertEquals("2222", legacy.get("lastFourDigits").asText());
+    }
+
+    @Test
+    void Should_StopAtLimit_When_LimitGiven() throws Exception {
+        when(cardRepository.streamSummariesAfterId(0L)).thenReturn(Stream.of(
+            new CardSummary(1L, "A", "1111", 16, CREATED, null),
+            new CardSummary(2L, "B", "1111", 16, CREATED, null),
+            new CardSummary(3L, "C", "1111", 16, CREATED, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = cardExportService.export(0L, 2, CardExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, exported);
+        assertEquals(CardExportService.CSV_HEADER, lines[0]);
+        assertEquals("1,A,************1111,1111,16,,2024-01-02T03:04:05", lines[1]);
+        assertEquals(3, lines.length);
+    }
+
+    @Test
+    void Should_QuoteCsvField_When_ValueHasSeparatorsOrFormula() {
+        assertEquals("Plain Name", csv("Plain Name"));
+        assertEquals("\"Doe, John\"", csv("Doe, John"));
+        assertEquals("\"John \"\"JD\"\" Doe\"", csv("John \"JD\" Doe"));
+        assertEquals("\"'=HYPERLINK(1)\"", csv("=HYPERLINK(1)"));
+        assertEquals("", csv(null));
+    }
+
+    private static String csv(String value) {
+        StringBuilder line = new StringBuilder();
+        CardExportService.appendCsvField(line, value);
+        return line.toString();
+    }
+}
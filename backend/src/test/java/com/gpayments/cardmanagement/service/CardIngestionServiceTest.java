@@ -0,0 +1,93 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.IngestionStatusResponse;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardIngestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void Should_CompleteReplayedCard_When_CrashedBetweenCommitAndCompletion() throws Exception {
+        Path path = tempDir.resolve("ingestion.journal");
+        UUID committed = UUID.randomUUID();
+        UUID uncommitted = UUID.randomUUID();
+        try (IngestionJournal journal = new IngestionJournal(path, false)) {
+            journal.recover();
+            journal.appendAccepted(committed, card("Alice", "1111"));
+            journal.appendAccepted(uncommitted, card("Bob", "2222"));
+        }
+        // Alice's batch committed, then the process died before journaling its completion
+        CardRepository cardRepository = mock(CardRepository.class);
+        when(cardRepository.findIdByIngestionId(committed)).thenReturn(Optional.of(41L));
+        when(cardRepository.findIdByIngestionId(uncommitted)).thenReturn(Optional.empty());
+        CardBatchWriter cardBatchWriter = mock(CardBatchWriter.class);
+        when(cardBatchWriter.write(any())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            cards.forEach(card -> card.setId(42L));
+            return new CardBatchWriter.BatchWrite(cards.stream()
+                .map(card -> new CardBatchWriter.Resolution(CardBatchWriter.Outcome.CREATED, card))
+                .toList(), null);
+        });
+
+        CardIngestionService service = service(path, cardRepository, cardBatchWriter);
+        service.start();
+        for (int i = 0; i < 500 && service.status(uncommitted).get().getStatus() == IngestionStatusResponse.Status.QUEUED; i++) {
+            Thread.sleep(10);
+        }
+        service.shutdown();
+
+        IngestionStatusResponse replayed = service.status(committed).get();
+        assertEquals(IngestionStatusResponse.Status.CREATED, replayed.getStatus());
+        assertEquals(41L, replayed.getCardId());
+        assertEquals(42L, service.status(uncommitted).get().getCardId());
+        // Only Bob's card is written again
+        verify(cardBatchWriter).write(any());
+        try (IngestionJournal journal = new IngestionJournal(path, false)) {
+            assertTrue(journal.recover().isEmpty());
+        }
+    }
+
+    // Private helper methods
+    private static CardIngestionService service(Path path, CardRepository cardRepository,
+                                                CardBatchWriter cardBatchWriter) {
+        @SuppressWarnings("unchecked")
+        CardShards cardShards = new CardShards(mock(ObjectProvider.class), mock(PlatformTransactionManager.class), null);
+        return new CardIngestionService(mock(CardService.class), cardBatchWriter, cardRepository, cardShards,
+            mock(EncryptionService.class), new SimpleMeterRegistry(), "async", 100, 1, 10, 1,
+            Duration.ofHours(1), 1000, path.toString(), false, 1 << 20);
+    }
+
+    private static Card card(String cardholderName, String lastFourDigits) {
+        Card card = new Card();
+        card.setCardholderName(cardholderName);
+        card.setDataKeyId(7);
+        card.setPanNonce(new byte[12]);
+        card.setEncryptedPan(("ciphertext-" + lastFourDigits).getBytes(StandardCharsets.US_ASCII));
+        card.setPanHash(lastFourDigits.repeat(8).getBytes(StandardCharsets.US_ASCII));
+        card.setLastFourDigits(lastFourDigits);
+        card.setPanLength(16);
+        card.setPanToken("900000000000" + lastFourDigits);
+        return card;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gpayments.cardmanagement.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardMetricsTest {
+
+    private MeterRegistry meterRegistry;
+    private CardMetrics cardMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        cardMetrics = new CardMetrics(observationRegistry, meterRegistry);
+    }
+
+    @Test
+    void Should_TimeStageAndReturnResult_When_StageObserved() {
+        String result = cardMetrics.observe(CardMetrics.Stage.HASHING, () -> "hashed");
+
+        assertEquals("hashed", result);
+        Timer timer = meterRegistry.get(CardMetrics.STAGE_OBSERVATION).tag("stage", "hashing").timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void Should_TagErrorAndRethrow_When_StageFails() {
+        assertThrows(IllegalStateException.class, () -> cardMetrics.observe(CardMetrics.Stage.DB_SAVE, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Timer timer = meterRegistry.get(CardMetrics.STAGE_OBSERVATION)
+            .tag("stage", "db.save")
+            .tag("error", "IllegalStateException")
+            .timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void Should_RecordResultSizePerSearchType_When_SearchCompletes() {
+        cardMetrics.recordSearchResults(CardMetrics.SearchType.PAN, 2);
+        cardMetrics.recordSearchResults(CardMetrics.SearchType.LAST_FOUR, 50);
+        cardMetrics.recordSearchResults(CardMetrics.SearchType.LAST_FOUR, 10);
+
+        assertEquals(2, meterRegistry.get(CardMetrics.SEARCH_RESULTS).tag("search", "pan").summary().totalAmount());
+        assertEquals(2, meterRegistry.get(CardMetrics.SEARCH_RESULTS).tag("search", "last_four").summary().count());
+        assertEquals(60, meterRegistry.get(CardMetrics.SEARCH_RESULTS).tag("search", "last_four").summary().totalAmount());
+    }
+
+    @Test
+    void Should_CountFailuresPerReason_When_ValidationFails() {
+        cardMetrics.recordValidationFailure("pan.Pattern");
+        cardMetrics.recordValidationFailure("pan.Pattern");
+        cardMetrics.recordValidationFailure("cvv.NotBlank");
+
+        assertEquals(2, meterRegistry.get(CardMetrics.VALIDATION_FAILURES).tag("reason", "pan.Pattern").counter().count());
+        assertEquals(1, meterRegistry.get(CardMetrics.VALIDATION_FAILURES).tag("reason", "cvv.NotBlank").counter().count());
+    }
+}
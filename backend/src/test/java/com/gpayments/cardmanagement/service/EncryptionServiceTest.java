@@ -1,111 +1,111 @@
 package com.gpayments.cardmanagement.service;
 
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.Card;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class EncryptionServiceTest {
 
     private EncryptionService encryptionService;
+    private DataKeyService dataKeyService;
 
     private static final String TEST_SECRET_KEY = "MySecretKey123456789012345678901";
+    private static final int TEST_DATA_KEY_ID = 7;
     private static final String TEST_PAN = "4111111111111111";
     private static final String TEST_PAN_LAST_FOUR = "1111";
     private static final String TEST_MASKED_PAN = "************1111";
 
     @BeforeEach
-    void setUp() {
-        encryptionService = new EncryptionService(TEST_SECRET_KEY);
+    void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey dataKey = generator.generateKey();
+
+        dataKeyService = mock(DataKeyService.class);
+        when(dataKeyService.activeKey())
+            .thenReturn(new DataKeyService.ActiveDataKey(TEST_DATA_KEY_ID, dataKey, LocalDateTime.now()));
+        when(dataKeyService.key(TEST_DATA_KEY_ID)).thenReturn(dataKey);
+
+        encryptionService = new EncryptionService(dataKeyService, TEST_SECRET_KEY, "");
     }
 
     // Encryption Tests
     @Test
-    void Should_EncryptPlaintext_When_ValidInputProvided() throws Exception {
-        String plaintext = "test data";
-        String encrypted = encryptionService.encrypt(plaintext);
-        assertNotNull(encrypted);
-        assertNotEquals(plaintext, encrypted);
-        assertTrue(encrypted.length() > 0);
+    void Should_EncryptPlaintext_When_ValidInputProvided() {
+        EncryptedPan encrypted = encryptionService.encrypt(TEST_PAN);
+
+        assertEquals(TEST_DATA_KEY_ID, encrypted.dataKeyId());
+        assertEquals(12, encrypted.nonce().length);
+        // 16 digits plus the 16-byte GCM tag
+        assertEquals(TEST_PAN.length() + 16, encrypted.ciphertext().length);
+        assertFalse(Arrays.equals(TEST_PAN.getBytes(StandardCharsets.US_ASCII),
+            Arrays.copyOf(encrypted.ciphertext(), TEST_PAN.length())));
     }
 
     @Test
     void Should_ThrowIllegalArgumentException_When_NullPlaintextProvided() {
-        assertThrows(IllegalArgumentException.class, () -> {
-            encryptionService.encrypt(null);
-        });
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.encrypt((CharSequence) null));
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.encrypt((byte[]) null));
     }
 
     @Test
-    void Should_EncryptEmptyString_When_EmptyPlaintextProvided() throws Exception {
-        String plaintext = "";
-        String encrypted = encryptionService.encrypt(plaintext);
-        assertNotNull(encrypted);
-        assertNotEquals(plaintext, encrypted);
-    }
+    void Should_EncryptSamePlaintextToDifferentCiphertext_When_EncryptedMultipleTimes() {
+        EncryptedPan encrypted1 = encryptionService.encrypt(TEST_PAN);
+        EncryptedPan encrypted2 = encryptionService.encrypt(TEST_PAN);
 
-    @Test
-    void Should_EncryptSamePlaintextToSameCiphertext_When_EncryptedMultipleTimes() throws Exception {
-        String plaintext = "consistent encryption test";
-        String encrypted1 = encryptionService.encrypt(plaintext);
-        String encrypted2 = encryptionService.encrypt(plaintext);
-        assertEquals(encrypted1, encrypted2, "Same plaintext should encrypt to same ciphertext");
+        assertFalse(Arrays.equals(encrypted1.nonce(), encrypted2.nonce()), "Every record needs a fresh nonce");
+        assertFalse(Arrays.equals(encrypted1.ciphertext(), encrypted2.ciphertext()));
     }
 
     // Decryption Tests
     @Test
-    void Should_DecryptCiphertext_When_ValidEncryptedDataProvided() throws Exception {
-        String originalText = "test data for decryption";
-        String encrypted = encryptionService.encrypt(originalText);
-        String decrypted = encryptionService.decrypt(encrypted);
-        assertEquals(originalText, decrypted);
-    }
+    void Should_DecryptCiphertext_When_ValidEncryptedDataProvided() {
+        EncryptedPan encrypted = encryptionService.encrypt(TEST_PAN);
 
-    @Test
-    void Should_ThrowIllegalArgumentException_When_NullEncryptedDataProvided() {
-        assertThrows(IllegalArgumentException.class, () -> {
-            encryptionService.decrypt(null);
-        });
+        byte[] decrypted = encryptionService.decrypt(encrypted);
+        assertEquals(TEST_PAN, new String(decrypted, StandardCharsets.US_ASCII));
     }
 
     @Test
-    void Should_DecryptEmptyString_When_EmptyStringWasEncrypted() throws Exception {
-        String originalText = "";
-        String encrypted = encryptionService.encrypt(originalText);
-        String decrypted = encryptionService.decrypt(encrypted);
+    void Should_DecryptCard_When_CardHoldsEnvelopeCiphertext() {
+        EncryptedPan encrypted = encryptionService.encrypt(TEST_PAN);
+        Card card = new Card();
+        card.setEncryptedPan(encrypted.ciphertext());
+        card.setPanNonce(encrypted.nonce());
+        card.setDataKeyId(encrypted.dataKeyId());
 
-        assertEquals(originalText, decrypted);
+        assertEquals(TEST_PAN, new String(encryptionService.decrypt(card), StandardCharsets.US_ASCII));
     }
 
     @Test
-    void Should_ThrowException_When_InvalidEncryptedDataProvided() {
-        String invalidEncryptedData = "invalid-base64-data!@#";
-
-        assertThrows(Exception.class, () -> {
-            encryptionService.decrypt(invalidEncryptedData);
-        });
+    void Should_ThrowIllegalArgumentException_When_NullEncryptedDataProvided() {
+        assertThrows(IllegalArgumentException.class, () -> encryptionService.decrypt((EncryptedPan) null));
     }
 
-    // Hash Generation Tests
     @Test
-    void Should_GenerateHash_When_ValidPanProvided() throws Exception {
-        String pan = TEST_PAN;
+    void Should_ThrowException_When_CiphertextTampered() {
+        EncryptedPan encrypted = encryptionService.encrypt(TEST_PAN);
+        encrypted.ciphertext()[0] ^= 1;
 
-        String hash = encryptionService.generateHash(pan);
-        assertNotNull(hash);
-        assertNotEquals(pan, hash);
-        assertTrue(hash.length() > 0);
+        assertThrows(CardManagementException.class, () -> encryptionService.decrypt(encrypted));
     }
 
     @Test
-    void Should_ThrowIllegalArgumentException_When_NullPanProvidedForHash() {
-        assertThrows(IllegalArgumentException.class, () -> {
-            encryptionService.generateHash(null);
-        });
+    void Should_ThrowException_When_CardHasNoCiphertext() {
+        assertThrows(CardManagementException.class, () -> encryptionService.decrypt(new Card()));
     }
 
-
     // Last Four Digits Tests
     @Test
     void Should_ReturnLastFourDigits_When_PanWithMoreThanFourDigitsProvided() {
@@ -146,6 +146,19 @@ class EncryptionServiceTest {
         assertEquals(pan, masked);
     }
 
+    @Test
+    void Should_MaskFromStoredFields_When_PanLengthAndLastFourProvided() {
+        String masked = encryptionService.maskPan(TEST_PAN.length(), TEST_PAN_LAST_FOUR);
+
+        assertEquals(TEST_MASKED_PAN, masked);
+        assertEquals(encryptionService.maskPan(TEST_PAN), masked);
+    }
+
+    @Test
+    void Should_ReturnEmptyString_When_NullLastFourProvidedForStoredMask() {
+        assertEquals("", encryptionService.maskPan(16, null));
+    }
+
 
 
 
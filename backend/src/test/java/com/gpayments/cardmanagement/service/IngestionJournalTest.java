@@ -0,0 +1,113 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.model.Card;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void Should_ReturnUncompletedCards_When_Recovered() throws Exception {
+        Path path = tempDir.resolve("ingestion.journal");
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        try (IngestionJournal journal = new IngestionJournal(path, true)) {
+            journal.recover();
+            journal.appendAccepted(first, card("Alice", "1111"));
+            journal.appendAccepted(second, card("Bob", "2222"));
+            journal.appendAccepted(third, card("Carol", "3333"));
+            journal.appendCompleted(List.of(second));
+        }
+
+        try (IngestionJournal journal = new IngestionJournal(path, true)) {
+            List<IngestionJournal.Entry> pending = journal.recover();
+
+            assertEquals(List.of(first, third), pending.stream().map(IngestionJournal.Entry::trackingId).toList());
+            Card recovered = pending.get(0).card();
+            Card original = card("Alice", "1111");
+            assertEquals("Alice", recovered.getCardholderName());
+            assertEquals("1111", recovered.getLastFourDigits());
+            assertEquals(16, recovered.getPanLength());
+            assertEquals(7, recovered.getDataKeyId());
+            assertArrayEquals(original.getEncryptedPan(), recovered.getEncryptedPan());
+            assertArrayEquals(original.getPanNonce(), recovered.getPanNonce());
+            assertArrayEquals(original.getPanHash(), recovered.getPanHash());
+            assertEquals("9000000000001111", recovered.getPanToken());
+            assertEquals(first, recovered.getIngestionId());
+            assertNull(recovered.getId());
+        }
+    }
+
+    @Test
+    void Should_DropTornRecord_When_TailIsIncomplete() throws Exception {
+        Path path = tempDir.resolve("ingestion.journal");
+        UUID kept = UUID.randomUUID();
+        try (IngestionJournal journal = new IngestionJournal(path, false)) {
+            journal.recover();
+            journal.appendAccepted(kept, card("Alice", "1111"));
+            journal.appendAccepted(UUID.randomUUID(), card("Bob", "2222"));
+        }
+        long intact = firstRecordSize(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 5);
+        }
+
+        try (IngestionJournal journal = new IngestionJournal(path, false)) {
+            List<IngestionJournal.Entry> pending = journal.recover();
+
+            assertEquals(1, pending.size());
+            assertEquals(kept, pending.get(0).trackingId());
+            assertEquals(intact, Files.size(path));
+        }
+    }
+
+    @Test
+    void Should_EmptyJournal_When_IdleAndPastThreshold() throws Exception {
+        Path path = tempDir.resolve("ingestion.journal");
+        try (IngestionJournal journal = new IngestionJournal(path, false)) {
+            journal.recover();
+            UUID trackingId = UUID.randomUUID();
+            journal.appendAccepted(trackingId, card("Alice", "1111"));
+
+            assertFalse(journal.truncateIfIdle(1, () -> false));
+            journal.appendCompleted(List.of(trackingId));
+            assertTrue(journal.truncateIfIdle(1, () -> true));
+
+            assertEquals(0, journal.size());
+            assertEquals(0, Files.size(path));
+        }
+    }
+
+    private static long firstRecordSize(Path path) throws Exception {
+        byte[] bytes = Files.readAllBytes(path);
+        int length = (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+        return 8L + length;
+    }
+
+    private static Card card(String cardholderName, String lastFourDigits) {
+        Card card = new Card();
+        card.setCardholderName(cardholderName);
+        card.setDataKeyId(7);
+        card.setPanNonce(new byte[12]);
+        card.setEncryptedPan(("ciphertext-" + lastFourDigits).getBytes(StandardCharsets.US_ASCII));
+        card.setPanHash(lastFourDigits.repeat(8).getBytes(StandardCharsets.US_ASCII));
+        card.setLastFourDigits(lastFourDigits);
+        card.setPanLength(16);
+        card.setPanToken("900000000000" + lastFourDigits);
+        return card;
+    }
+}
@@ -0,0 +1,88 @@
+package com.gpayments.cardmanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LastFourIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LastFourIndex lastFourIndex;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:last-four-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        lastFourIndex = new LastFourIndex(jdbcTemplate, mock(CardShards.class), new SimpleMeterRegistry(),
+            true, "", 100, Duration.ofMinutes(1), 10);
+
+        lastFourIndex.run(null);
+        for (int i = 0; i < 500 && !lastFourIndex.isReady(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(lastFourIndex.isReady());
+    }
+
+    @Test
+    void Should_IndexCardsOfOtherInstances_When_Refreshed() {
+        insert(1, "1111");
+        insert(2, "2222");
+
+        lastFourIndex.refresh();
+
+        assertArrayEquals(new long[] {1}, lastFourIndex.lookup("1111"));
+        assertArrayEquals(new long[] {2}, lastFourIndex.lookup("2222"));
+    }
+
+    @Test
+    void Should_IndexLowerId_When_CommittedAfterRefresh() {
+        insert(1, "1111");
+        insert(51, "1111");
+        lastFourIndex.refresh();
+
+        // Allocated earlier from another instance's sequence block but committed after the refresh
+        insert(2, "1111");
+        lastFourIndex.refresh();
+
+        assertArrayEquals(new long[] {1, 2, 51}, lastFourIndex.lookup("1111"));
+    }
+
+    @Test
+    void Should_IndexIdFarBelowMargin_When_CreatedSinceLastRefresh() {
+        insert(1, "1111");
+        insert(100_000, "1111");
+        lastFourIndex.refresh();
+
+        // A block held by another instance for a long time, well outside the rescan margin
+        insert(5, "1111");
+        lastFourIndex.refresh();
+
+        assertArrayEquals(new long[] {1, 5, 100_000}, lastFourIndex.lookup("1111"));
+    }
+
+    @Test
+    void Should_ReportCompleteBefore_When_Ready() {
+        LocalDateTime completeBefore = lastFourIndex.completeBefore();
+
+        assertNotNull(completeBefore);
+        assertTrue(completeBefore.isBefore(LocalDateTime.now().minusSeconds(59)));
+    }
+
+    // Private helper methods
+    private void insert(long id, String lastFour) {
+        jdbcTemplate.update("INSERT INTO cards (id, cardholder_name, last_four_digits, pan_length, created_time) "
+            + "VALUES (?, ?, ?, 16, CURRENT_TIMESTAMP)", id, "Card " + id, lastFour);
+    }
+}
@@ -0,0 +1,66 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacyPanDecryptorTest {
+
+    private static final String TEST_PASSWORD = "MySecretKey123456789012345678901";
+    private static final String TEST_SALT = "5c0744940b5c369b";
+    private static final String TEST_PAN = "4111111111111111";
+
+    private AesBytesEncryptor springEncryptor;
+    private LegacyPanDecryptor legacyDecryptor;
+
+    @BeforeEach
+    void setUp() {
+        springEncryptor = new AesBytesEncryptor(TEST_PASSWORD, TEST_SALT);
+        legacyDecryptor = new LegacyPanDecryptor(TEST_PASSWORD, TEST_SALT);
+    }
+
+    @Test
+    void Should_DecryptAesBytesEncryptorOutput_When_SamePasswordAndSalt() {
+        byte[] encrypted = springEncryptor.encrypt(TEST_PAN.getBytes(StandardCharsets.US_ASCII));
+
+        byte[] decrypted = legacyDecryptor.decrypt(encrypted);
+
+        // No IV prefix: one PAN block plus one padding block
+        assertEquals(32, encrypted.length);
+        assertEquals(TEST_PAN, new String(decrypted, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void Should_ReuseCiphers_When_DecryptingRepeatedly() {
+        for (int i = 0; i < 10; i++) {
+            String pan = TEST_PAN.substring(0, 12) + String.format("%04d", i);
+            byte[] encrypted = springEncryptor.encrypt(pan.getBytes(StandardCharsets.US_ASCII));
+
+            assertEquals(pan, new String(legacyDecryptor.decrypt(encrypted), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void Should_ThrowException_When_CiphertextTooShort() {
+        assertThrows(IllegalArgumentException.class, () -> legacyDecryptor.decrypt(new byte[15]));
+    }
+
+    @Test
+    void Should_RejectSalt_When_NotHex() {
+        // AesBytesEncryptor hex-decodes its salt too, so it can never have written rows under such a salt
+        assertThrows(IllegalArgumentException.class, () -> new AesBytesEncryptor(TEST_PASSWORD, "card-management-salt"));
+        assertThrows(IllegalArgumentException.class, () -> new LegacyPanDecryptor(TEST_PASSWORD, "card-management-salt"));
+    }
+
+    @Test
+    void Should_ThrowException_When_SaltNotConfigured() {
+        byte[] encrypted = springEncryptor.encrypt(TEST_PAN.getBytes(StandardCharsets.US_ASCII));
+
+        assertThrows(CardManagementException.class, () -> new LegacyPanDecryptor(TEST_PASSWORD, "").decrypt(encrypted));
+    }
+}
@@ -0,0 +1,62 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MasterKeyProviderTest {
+
+    private static final String PASSWORD = "test-password";
+    private static final String ALIAS = "card-master-key";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void Should_CreateKeystore_When_MissingAndCreationAllowed() {
+        Path keystore = tempDir.resolve("keys/master-key.p12");
+
+        new MasterKeyProvider(keystore.toString(), PASSWORD, ALIAS, true);
+        assertTrue(Files.exists(keystore));
+    }
+
+    @Test
+    void Should_ThrowException_When_KeystoreMissingAndCreationDisabled() {
+        Path keystore = tempDir.resolve("missing.p12");
+
+        assertThrows(CardManagementException.class,
+            () -> new MasterKeyProvider(keystore.toString(), PASSWORD, ALIAS, false));
+    }
+
+    @Test
+    void Should_UnwrapDataKey_When_KeystoreReloaded() throws Exception {
+        Path keystore = tempDir.resolve("master-key.p12");
+        MasterKeyProvider original = new MasterKeyProvider(keystore.toString(), PASSWORD, ALIAS, true);
+
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey dataKey = generator.generateKey();
+        byte[] wrapped = original.wrap(dataKey);
+
+        MasterKeyProvider reloaded = new MasterKeyProvider(keystore.toString(), PASSWORD, ALIAS, false);
+        assertArrayEquals(dataKey.getEncoded(), reloaded.unwrap(wrapped).getEncoded());
+    }
+
+    @Test
+    void Should_ThrowException_When_WrappedKeyTampered() throws Exception {
+        MasterKeyProvider provider = new MasterKeyProvider(tempDir.resolve("master-key.p12").toString(), PASSWORD, ALIAS, true);
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        byte[] wrapped = provider.wrap(generator.generateKey());
+        wrapped[wrapped.length - 1] ^= 1;
+
+        assertThrows(CardManagementException.class, () -> provider.unwrap(wrapped));
+    }
+}
@@ -0,0 +1,148 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardPanMatch;
+import com.gpayments.cardmanagement.dto.CardResponse;
+import com.gpayments.cardmanagement.dto.PanSearchResult;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PanBatchSearchServiceTest {
+
+    private static final String VISA = "4111111111111111";
+    private static final String MASTERCARD = "5555555555554444";
+    private static final String AMEX = "378282246310005";
+
+    private final PanHashService panHashService = new PanHashService("TestPanHashPepper-0123456789abcdef");
+    private final List<CardPanMatch> stored = new ArrayList<>();
+    private CardRepository cardRepository;
+    private PanLookupCache panLookupCache;
+    private PanBatchSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        when(cardRepository.findMatchesByPanHashIn(any())).thenAnswer(invocation -> {
+            Collection<byte[]> panHashes = invocation.getArgument(0);
+            return stored.stream()
+                .filter(match -> panHashes.stream().anyMatch(panHash -> Arrays.equals(panHash, match.panHash())))
+                .toList();
+        });
+        panLookupCache = new PanLookupCache(100, Duration.ofMinutes(5), Duration.ZERO, new SimpleMeterRegistry());
+        EncryptionService encryptionService = new EncryptionService(mock(DataKeyService.class), "MySecretKey123456789012345678901", "");
+        CardMetrics metrics = new CardMetrics(ObservationRegistry.create(), new SimpleMeterRegistry());
+        @SuppressWarnings("unchecked")
+        CardShards cardShards = new CardShards(mock(ObjectProvider.class), mock(PlatformTransactionManager.class), null);
+        service = new PanBatchSearchService(cardRepository, cardShards, panHashService, encryptionService, panLookupCache,
+            metrics, 5, 2, 4, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void Should_ReturnMatchesPerPanInRequestOrder_When_BatchSearched() {
+        store(1L, VISA);
+        store(2L, AMEX);
+        store(3L, VISA);
+
+        List<PanSearchResult> results = service.search(pans(AMEX, MASTERCARD, VISA));
+
+        assertEquals(3, results.size());
+        assertEquals(0, results.get(0).getIndex());
+        assertEquals("***********0005", results.get(0).getMaskedPan());
+        assertEquals(List.of(2L), ids(results.get(0)));
+        assertEquals(List.of(), ids(results.get(1)));
+        assertEquals("************1111", results.get(2).getMaskedPan());
+        assertEquals(List.of(1L, 3L), ids(results.get(2)));
+    }
+
+    @Test
+    void Should_QueryEachPanOnce_When_PanRepeated() {
+        store(1L, VISA);
+
+        List<PanSearchResult> results = service.search(pans(VISA, VISA, VISA));
+
+        assertEquals(List.of(0, 1, 2), results.stream().map(PanSearchResult::getIndex).toList());
+        results.forEach(result -> assertEquals(List.of(1L), ids(result)));
+        verify(cardRepository, times(1)).findMatchesByPanHashIn(any());
+    }
+
+    @Test
+    void Should_QueryInChunks_When_HashedInParallel() {
+        store(1L, VISA);
+        store(2L, MASTERCARD);
+        store(3L, AMEX);
+
+        List<PanSearchResult> results = service.search(pans(VISA, MASTERCARD, AMEX, "6011111111111117"));
+
+        assertEquals(List.of(1L), ids(results.get(0)));
+        assertEquals(List.of(2L), ids(results.get(1)));
+        assertEquals(List.of(3L), ids(results.get(2)));
+        assertEquals(List.of(), ids(results.get(3)));
+        verify(cardRepository, times(2)).findMatchesByPanHashIn(any());
+    }
+
+    @Test
+    void Should_SkipDatabase_When_AllPansCached() {
+        store(1L, VISA);
+        service.search(pans(VISA));
+
+        List<PanSearchResult> results = service.search(pans(VISA));
+
+        assertEquals(List.of(1L), ids(results.get(0)));
+        verify(cardRepository, times(1)).findMatchesByPanHashIn(any());
+        assertNotNull(panLookupCache.get(panHashService.hash(VISA)));
+    }
+
+    @Test
+    void Should_RejectAndWipePans_When_BatchTooLarge() {
+        List<SecurePan> pans = pans(VISA, VISA, VISA, VISA, VISA, VISA);
+
+        assertThrows(IllegalArgumentException.class, () -> service.search(pans));
+
+        verify(cardRepository, never()).findMatchesByPanHashIn(any());
+        pans.forEach(pan -> assertThrows(IllegalStateException.class, pan::digits));
+    }
+
+    // Private helper methods
+    private void store(Long id, String pan) {
+        stored.add(new CardPanMatch(panHashService.hash(pan), id, "Card " + id, pan.substring(pan.length() - 4),
+            pan.length(), LocalDateTime.now().plusSeconds(id), null));
+    }
+
+    private static List<SecurePan> pans(String... pans) {
+        return Arrays.stream(pans)
+            .map(SecurePan::of)
+            .toList();
+    }
+
+    private static List<Long> ids(PanSearchResult result) {
+        return result.getCards().stream()
+            .map(CardResponse::getId)
+            .toList();
+    }
+}
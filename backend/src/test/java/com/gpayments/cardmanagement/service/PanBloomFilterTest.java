@@ -0,0 +1,104 @@
+package com.gpayments.cardmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PanBloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long FINGERPRINT = 42L;
+
+    private final PanHashService panHashService = new PanHashService("TestPanHashPepper-0123456789abcdef");
+    private PanBloomFilter filter;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        filter = new PanBloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+    }
+
+    @Test
+    void Should_ContainEveryPan_When_Put() {
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(hash(i));
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain(hash(i)), "False negative for PAN " + i);
+        }
+    }
+
+    @Test
+    void Should_KeepFalsePositivesNearConfiguredRate_When_Full() {
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(hash(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = INSERTIONS; i < INSERTIONS * 3; i++) {
+            if (filter.mightContain(hash(i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < INSERTIONS * 2 * FALSE_POSITIVE_RATE * 2,
+            "Too many false positives: " + falsePositives);
+    }
+
+    @Test
+    void Should_RestoreContentsAndWatermark_When_SnapshotRead() throws Exception {
+        Path snapshot = tempDir.resolve("pan-filter.bin");
+        for (int i = 0; i < 100; i++) {
+            filter.put(hash(i));
+        }
+        filter.writeSnapshot(snapshot, FINGERPRINT, 1234L);
+
+        PanBloomFilter restored = new PanBloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        long watermark = restored.readSnapshot(snapshot, FINGERPRINT);
+
+        assertEquals(1234L, watermark);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(restored.mightContain(hash(i)));
+        }
+    }
+
+    @Test
+    void Should_IgnoreSnapshot_When_KeyFingerprintDiffers() throws Exception {
+        Path snapshot = tempDir.resolve("pan-filter.bin");
+        filter.put(hash(1));
+        filter.writeSnapshot(snapshot, FINGERPRINT, 1L);
+
+        PanBloomFilter restored = new PanBloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+
+        assertEquals(-1, restored.readSnapshot(snapshot, FINGERPRINT + 1));
+        assertFalse(restored.mightContain(hash(1)));
+    }
+
+    @Test
+    void Should_IgnoreSnapshot_When_SizingDiffers() throws Exception {
+        Path snapshot = tempDir.resolve("pan-filter.bin");
+        filter.writeSnapshot(snapshot, FINGERPRINT, 1L);
+
+        PanBloomFilter larger = new PanBloomFilter(INSERTIONS * 10, FALSE_POSITIVE_RATE);
+
+        assertEquals(-1, larger.readSnapshot(snapshot, FINGERPRINT));
+    }
+
+    @Test
+    void Should_ThrowException_When_SizingInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new PanBloomFilter(0, FALSE_POSITIVE_RATE));
+        assertThrows(IllegalArgumentException.class, () -> new PanBloomFilter(INSERTIONS, 1.0));
+    }
+
+    private byte[] hash(int i) {
+        return panHashService.hash(String.format("4%015d", i));
+    }
+}
@@ -0,0 +1,78 @@
+package com.gpayments.cardmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PanHashServiceTest {
+
+    private PanHashService panHashService;
+
+    private static final String TEST_PEPPER = "TestPanHashPepper-0123456789abcdef";
+    private static final String TEST_PAN = "4111111111111111";
+
+    @BeforeEach
+    void setUp() {
+        panHashService = new PanHashService(TEST_PEPPER);
+    }
+
+    @Test
+    void Should_Return32ByteDigest_When_ValidPanProvided() {
+        byte[] hash = panHashService.hash(TEST_PAN);
+
+        assertEquals(PanHashService.HASH_LENGTH, hash.length);
+    }
+
+    @Test
+    void Should_ReturnSameDigest_When_SamePanHashedTwice() {
+        assertArrayEquals(panHashService.hash(TEST_PAN), panHashService.hash(TEST_PAN));
+    }
+
+    @Test
+    void Should_ReturnSameDigest_When_PanProvidedAsCharSequenceOrBytes() {
+        byte[] fromChars = panHashService.hash(new StringBuilder(TEST_PAN));
+        byte[] fromBytes = panHashService.hash(TEST_PAN.getBytes(StandardCharsets.US_ASCII));
+
+        assertArrayEquals(fromChars, fromBytes);
+    }
+
+    @Test
+    void Should_ReturnDifferentDigest_When_PepperDiffers() {
+        PanHashService otherPepper = new PanHashService("AnotherPanHashPepper-0123456789abcdef");
+
+        assertFalse(Arrays.equals(panHashService.hash(TEST_PAN), otherPepper.hash(TEST_PAN)));
+    }
+
+    @Test
+    void Should_ReturnDifferentDigest_When_PanDiffers() {
+        assertFalse(Arrays.equals(panHashService.hash(TEST_PAN), panHashService.hash("4012888888881881")));
+    }
+
+    @Test
+    void Should_ThrowIllegalArgumentException_When_NullPanProvided() {
+        assertThrows(IllegalArgumentException.class, () -> panHashService.hash((CharSequence) null));
+        assertThrows(IllegalArgumentException.class, () -> panHashService.hash((byte[]) null));
+    }
+
+    @Test
+    void Should_ThrowIllegalArgumentException_When_PepperTooShort() {
+        assertThrows(IllegalArgumentException.class, () -> new PanHashService("short"));
+    }
+
+    @Test
+    void Should_ReturnConsistentDigests_When_HashedConcurrently() {
+        byte[] expected = panHashService.hash(TEST_PAN);
+
+        List<byte[]> hashes = IntStream.range(0, 10_000).parallel()
+            .mapToObj(i -> panHashService.hash(TEST_PAN))
+            .toList();
+
+        hashes.forEach(hash -> assertArrayEquals(expected, hash));
+    }
+}
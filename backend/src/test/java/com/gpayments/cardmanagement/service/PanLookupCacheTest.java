@@ -0,0 +1,103 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.CardResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PanLookupCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private final PanHashService panHashService = new PanHashService("TestPanHashPepper-0123456789abcdef");
+    private final AtomicLong nanos = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private PanLookupCache panLookupCache;
+    private byte[] panHash;
+    private List<CardResponse> cards;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        panLookupCache = new PanLookupCache(100, TTL, Duration.ZERO, meterRegistry, nanos::get);
+        panHash = panHashService.hash("4111111111111111");
+        cards = List.of(new CardResponse(1L, "John Doe", "************1111", LocalDateTime.now()));
+    }
+
+    @Test
+    void Should_ReturnCachedCards_When_PanHashPut() {
+        panLookupCache.put(panHash, cards, panLookupCache.version(panHash));
+
+        assertEquals(cards, panLookupCache.get(panHash));
+        assertEquals(cards, panLookupCache.get(panHashService.hash("4111111111111111")));
+    }
+
+    @Test
+    void Should_ReturnNull_When_PanHashNotCached() {
+        assertNull(panLookupCache.get(panHash));
+        assertNull(panLookupCache.get(panHashService.hash("5555555555554444")));
+    }
+
+    @Test
+    void Should_DropEntry_When_Invalidated() {
+        panLookupCache.put(panHash, cards, panLookupCache.version(panHash));
+
+        panLookupCache.invalidate(panHash);
+
+        assertNull(panLookupCache.get(panHash));
+    }
+
+    @Test
+    void Should_NotCacheStaleResult_When_InvalidatedDuringLoad() {
+        long version = panLookupCache.version(panHash);
+        panLookupCache.invalidate(panHash);
+
+        panLookupCache.put(panHash, List.of(), version);
+
+        assertNull(panLookupCache.get(panHash));
+    }
+
+    @Test
+    void Should_NotCacheResult_When_WithinWriteSettleTimeOfInvalidation() {
+        PanLookupCache settling = new PanLookupCache(100, TTL, Duration.ofSeconds(5), meterRegistry, nanos::get);
+        settling.put(panHash, cards, settling.version(panHash));
+        assertEquals(cards, settling.get(panHash));
+
+        settling.invalidate(panHash);
+        nanos.addAndGet(Duration.ofSeconds(4).toNanos());
+        settling.put(panHash, List.of(), settling.version(panHash));
+        assertNull(settling.get(panHash));
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        settling.put(panHash, cards, settling.version(panHash));
+        assertEquals(cards, settling.get(panHash));
+    }
+
+    @Test
+    void Should_ExpireEntry_When_TtlElapsed() {
+        panLookupCache.put(panHash, cards, panLookupCache.version(panHash));
+
+        nanos.addAndGet(TTL.plusSeconds(1).toNanos());
+
+        assertNull(panLookupCache.get(panHash));
+    }
+
+    @Test
+    void Should_RecordHitsAndMisses_When_LookedUp() {
+        panLookupCache.get(panHash);
+        panLookupCache.put(panHash, cards, panLookupCache.version(panHash));
+        panLookupCache.get(panHash);
+        panLookupCache.get(panHash);
+
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "pan-lookup").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "pan-lookup").tag("result", "miss").functionCounter().count());
+    }
+}
@@ -1,10 +1,15 @@
 package com.gpayments.cardmanagement.service;
 
+import com.gpayments.cardmanagement.model.CardScheme;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -153,4 +158,68 @@ class PanValidationServiceTest {
         }
     }
 
+
+    // Scheme Tests
+    @Test
+    void Should_ReturnTrue_When_ValidPansForEachSchemeProvided() {
+        String[] validCards = {
+            "378282246310005",      // Amex
+            "5555555555554444",     // Mastercard 5-series
+            "2221000000000009",     // Mastercard 2-series
+            "6011000000000004",     // Discover
+            "3530000000000003",     // JCB
+            "36000000000008",       // Diners
+            "6200000000000005",     // UnionPay
+            "4000000000000000006"   // 19-digit Visa
+        };
+
+        for (String pan : validCards) {
+            assertTrue(panValidationService.isValidPan(pan), "Failed for PAN: " + pan);
+        }
+    }
+
+    @Test
+    void Should_ReturnFalse_When_LuhnValidPanHasLengthNotIssuedByScheme() {
+        String[] wrongLengthCards = {
+            "400000000000006",      // 15-digit Visa
+            "3700000000000007",     // 16-digit Amex
+            "510000000000003",      // 15-digit Mastercard
+            "353000000000003"       // 15-digit JCB
+        };
+
+        for (String pan : wrongLengthCards) {
+            assertFalse(panValidationService.isValidPan(pan), "Should have failed for PAN: " + pan);
+        }
+    }
+
+    @Test
+    void Should_DetectScheme_When_BinIsKnown() {
+        assertEquals(CardScheme.VISA, panValidationService.detectScheme("4111111111111111"));
+        assertEquals(CardScheme.MASTERCARD, panValidationService.detectScheme("2221000000000009"));
+        assertEquals(CardScheme.AMEX, panValidationService.detectScheme("378282246310005"));
+        assertEquals(CardScheme.UNKNOWN, panValidationService.detectScheme("0000000000000000"));
+    }
+
+    @Test
+    void Should_MatchCharSequenceResult_When_PanProvidedAsBytes() {
+        String[] pans = {"4111111111111111", "4111111111111112", "3700000000000007", "411111111111111A", "0000000000000000"};
+
+        for (String pan : pans) {
+            assertEquals(panValidationService.isValidPan(pan),
+                panValidationService.isValidPan(pan.getBytes(StandardCharsets.US_ASCII)), "Mismatch for PAN: " + pan);
+        }
+        assertFalse(panValidationService.isValidPan((byte[]) null));
+    }
+
+    @Test
+    void Should_SetBitPerValidPan_When_ValidatingBatch() {
+        List<String> pans = List.of("4111111111111111", "4111111111111112", "5555555555554444", "123");
+
+        BitSet result = panValidationService.validateAll(pans);
+        assertTrue(result.get(0));
+        assertFalse(result.get(1));
+        assertTrue(result.get(2));
+        assertFalse(result.get(3));
+        assertEquals(2, result.cardinality());
+    }
 }
@@ -0,0 +1,115 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.exception.CardManagementException;
+import com.gpayments.cardmanagement.model.Card;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParallelDecryptorTest {
+
+    private static final int DATA_KEY_ID = 3;
+
+    private EncryptionService encryptionService;
+    private ParallelDecryptor parallelDecryptor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey dataKey = generator.generateKey();
+        DataKeyService dataKeyService = mock(DataKeyService.class);
+        when(dataKeyService.activeKey())
+            .thenReturn(new DataKeyService.ActiveDataKey(DATA_KEY_ID, dataKey, LocalDateTime.now()));
+        when(dataKeyService.key(DATA_KEY_ID)).thenReturn(dataKey);
+
+        encryptionService = new EncryptionService(dataKeyService, "MySecretKey123456789012345678901", "");
+        CardMetrics metrics = new CardMetrics(ObservationRegistry.create(), new SimpleMeterRegistry());
+        parallelDecryptor = new ParallelDecryptor(encryptionService, metrics, 4, 8, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelDecryptor.shutdown();
+    }
+
+    @Test
+    void Should_ReturnResultsInCardOrder_When_DecryptedInParallel() {
+        List<Card> cards = cards(100);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<String> pans = parallelDecryptor.decrypt(cards, pan -> {
+            threads.add(Thread.currentThread().getName());
+            return new String(pan, StandardCharsets.US_ASCII);
+        });
+
+        assertEquals(100, pans.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(pan(i), pans.get(i));
+        }
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    void Should_DecryptOnCallingThread_When_BelowThreshold() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> lengths = parallelDecryptor.decrypt(cards(7), pan -> {
+            threads.add(Thread.currentThread().getName());
+            return pan.length;
+        });
+
+        assertEquals(List.of(16, 16, 16, 16, 16, 16, 16), lengths);
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void Should_WipePan_When_ReaderReturns() {
+        List<byte[]> seen = new ArrayList<>();
+
+        parallelDecryptor.decrypt(cards(1), seen::add);
+
+        assertArrayEquals(new byte[16], seen.get(0));
+    }
+
+    @Test
+    void Should_PropagateFailure_When_OneCardCannotBeDecrypted() {
+        List<Card> cards = cards(50);
+        cards.get(40).setEncryptedPan(new byte[32]);
+
+        assertThrows(CardManagementException.class, () -> parallelDecryptor.decrypt(cards, pan -> pan.length));
+    }
+
+    private List<Card> cards(int count) {
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            EncryptedPan encrypted = encryptionService.encrypt(pan(i));
+            Card card = new Card();
+            card.setId((long) i);
+            card.setDataKeyId(encrypted.dataKeyId());
+            card.setPanNonce(encrypted.nonce());
+            card.setEncryptedPan(encrypted.ciphertext());
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private static String pan(int i) {
+        return String.format("4111%012d", i);
+    }
+}
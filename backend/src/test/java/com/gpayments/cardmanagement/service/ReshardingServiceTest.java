@@ -0,0 +1,146 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.config.ShardRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReshardingServiceTest {
+
+    private static final String IDS = "SELECT id FROM cards ORDER BY id";
+
+    private JdbcTemplate home;
+    private JdbcTemplate other;
+    private ShardRoutingDataSource routing;
+    private DataSourceTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+    private CardShards cardShards;
+
+    @BeforeEach
+    void setUp() {
+        // Fresh pair of in-memory shards per test
+        String name = UUID.randomUUID().toString();
+        DataSource homeDataSource = migrated("jdbc:h2:mem:shard-0-" + name + ";DB_CLOSE_DELAY=-1");
+        DataSource otherDataSource = migrated("jdbc:h2:mem:shard-1-" + name + ";DB_CLOSE_DELAY=-1");
+        home = new JdbcTemplate(homeDataSource);
+        other = new JdbcTemplate(otherDataSource);
+        routing = new ShardRoutingDataSource(List.of(homeDataSource, otherDataSource));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cardShards != null) {
+            cardShards.shutdown();
+        }
+    }
+
+    @Test
+    void Should_SpreadSlots_When_HomeShardEmpty() {
+        startShards();
+
+        assertEquals(0, cardShards.layout().owners()[0]);
+        assertEquals(1, cardShards.layout().owners()[1]);
+        assertFalse(cardShards.layout().isMoving());
+        assertEquals(1, cardShards.writeShard(panHash(3)));
+    }
+
+    @Test
+    void Should_MoveCardsToSlotOwner_When_Rebalanced() {
+        insert(home, 1, 2);
+        insert(home, 2, 3);
+        insert(home, 3, 5);
+        startShards();
+        // Existing cards keep every slot on the home shard until resharding
+        assertEquals(0, cardShards.writeShard(panHash(3)));
+
+        long moved = resharding().rebalance();
+
+        assertEquals(2, moved);
+        assertEquals(List.of(1L), home.queryForList(IDS, Long.class));
+        assertEquals(List.of(2L, 3L), other.queryForList(IDS, Long.class));
+        assertEquals(1, cardShards.writeShard(panHash(3)));
+        List<Long> found = cardShards.readByPanHash(panHash(5),
+            () -> jdbcTemplate.queryForList(IDS, Long.class), id -> id, Comparator.naturalOrder());
+        assertEquals(List.of(2L, 3L), found);
+    }
+
+    @Test
+    void Should_ReadBothShardsOnce_When_SlotMoving() {
+        startShards();
+        insert(home, 1, 2);
+        insert(home, 2, 4);
+        // A card already copied to the destination is read once
+        insert(other, 2, 4);
+        home.update("UPDATE card_shard_slots SET moving_to = 1 WHERE slot = 4");
+        cardShards.refresh();
+
+        assertEquals(1, cardShards.writeShard(panHash(4)));
+        List<Long> all = cardShards.readAll(() -> jdbcTemplate.queryForList(IDS, Long.class),
+            id -> id, Comparator.naturalOrder());
+        assertEquals(List.of(1L, 2L), all);
+    }
+
+    @Test
+    void Should_RefuseToMove_When_CardsLackPanHmac() {
+        insert(home, 1, 2);
+        home.update("INSERT INTO cards (id, cardholder_name, last_four_digits, pan_length, created_time) "
+            + "VALUES (2, 'Legacy', '1111', 16, CURRENT_TIMESTAMP)");
+        startShards();
+
+        assertThrows(IllegalStateException.class, () -> resharding().moveSlots(0, 1, Set.of(3)));
+        assertEquals(2, home.queryForObject("SELECT COUNT(*) FROM cards", Integer.class));
+    }
+
+    // Private helper methods
+    private void startShards() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<ShardRoutingDataSource> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(routing);
+        cardShards = new CardShards(provider, transactionManager, jdbcTemplate);
+    }
+
+    private ReshardingService resharding() {
+        return new ReshardingService(cardShards, routing, new SimpleMeterRegistry(), Duration.ZERO, 2);
+    }
+
+    private static DataSource migrated(String url) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/h2").load().migrate();
+        return dataSource;
+    }
+
+    private static void insert(JdbcTemplate shard, long id, int slot) {
+        shard.update("INSERT INTO cards (id, cardholder_name, last_four_digits, pan_length, created_time, pan_hmac) "
+            + "VALUES (?, ?, '1111', 16, CURRENT_TIMESTAMP, ?)", id, "Card " + id, panHash(slot));
+    }
+
+    // Slots are the top 10 bits of the PAN HMAC
+    private static byte[] panHash(int slot) {
+        byte[] panHash = new byte[32];
+        panHash[0] = (byte) (slot >>> 2);
+        panHash[1] = (byte) ((slot & 3) << 6);
+        return panHash;
+    }
+}
@@ -0,0 +1,30 @@
+package com.gpayments.cardmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCursorTest {
+
+    @Test
+    void Should_RoundTripCursor_When_EncodedAndDecoded() {
+        SearchCursor cursor = new SearchCursor(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123456000), 42L);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void Should_ReturnNull_When_NoCursorProvided() {
+        assertNull(SearchCursor.decode(null));
+        assertNull(SearchCursor.decode(""));
+    }
+
+    @Test
+    void Should_ThrowIllegalArgumentException_When_CursorIsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not-a-cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.gpayments.cardmanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SearchRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new SearchRateLimiter(true, 10, 3, 100, new SimpleMeterRegistry(), nanos::get);
+    }
+
+    @Test
+    void Should_AllowBurstThenReject_When_ClientExceedsRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("client-a"));
+        }
+
+        long wait = rateLimiter.tryAcquire("client-a");
+
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(101));
+    }
+
+    @Test
+    void Should_RefillAtConfiguredRate_When_TimePasses() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client-a");
+        }
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(101));
+
+        assertEquals(0, rateLimiter.tryAcquire("client-a"));
+        assertTrue(rateLimiter.tryAcquire("client-a") > 0);
+    }
+
+    @Test
+    void Should_LimitClientsIndependently_When_OneIsExhausted() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client-a");
+        }
+
+        assertTrue(rateLimiter.tryAcquire("client-a") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("client-b"));
+    }
+
+    @Test
+    void Should_HoldClientUntilDebtRepaid_When_ChargedForBatch() {
+        assertEquals(0, rateLimiter.tryAcquire("client-a"));
+
+        // A batch of 11 PANs: one permit at admission, ten charged after
+        rateLimiter.charge("client-a", 10);
+
+        long wait = rateLimiter.tryAcquire("client-a");
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(800));
+        nanos.addAndGet(wait);
+        assertEquals(0, rateLimiter.tryAcquire("client-a"));
+    }
+
+    @Test
+    void Should_AlwaysAllow_When_Disabled() {
+        SearchRateLimiter disabled = new SearchRateLimiter(false, 10, 1, 100, new SimpleMeterRegistry(), nanos::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, disabled.tryAcquire("client-a"));
+        }
+    }
+}
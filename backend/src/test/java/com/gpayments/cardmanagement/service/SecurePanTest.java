@@ -0,0 +1,53 @@
+package com.gpayments.cardmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.model.SecurePan;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurePanTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void Should_ReadDigits_When_DeserializedFromJson() throws Exception {
+        CardRequest request = objectMapper.readValue(
+            "{\"cardholderName\":\"John Doe\",\"pan\":\"4111111111111111\"}", CardRequest.class);
+
+        SecurePan pan = request.getPan();
+        assertArrayEquals("4111111111111111".getBytes(StandardCharsets.US_ASCII), pan.digits());
+        assertEquals(16, pan.length());
+        assertEquals("1111", pan.lastFour());
+    }
+
+    @Test
+    void Should_ExposeOnlyMaskedPan_When_PrintedOrSerialized() throws Exception {
+        SecurePan pan = SecurePan.of("4111111111111111");
+
+        assertEquals("************1111", pan.toString());
+        assertEquals("\"************1111\"", objectMapper.writeValueAsString(pan));
+    }
+
+    @Test
+    void Should_ZeroDigits_When_Wiped() {
+        SecurePan pan = SecurePan.of("4111111111111111");
+        byte[] digits = pan.digits();
+
+        pan.close();
+
+        assertArrayEquals(new byte[16], digits);
+        assertThrows(IllegalStateException.class, pan::digits);
+        assertEquals("****************", pan.toString());
+    }
+
+    @Test
+    void Should_FailValidation_When_PanHasNonAsciiCharacters() {
+        PanValidationService panValidationService = new PanValidationService();
+
+        assertFalse(panValidationService.isValidPan(SecurePan.of("411111111111111١").digits()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.gpayments.cardmanagement.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuffixPostingIndexTest {
+
+    private static final UUID DATABASE_ID = UUID.randomUUID();
+    private static final LocalDateTime COMPLETE_BEFORE = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void Should_KeepIdsSortedAndUnique_When_AddedOutOfOrder() {
+        SuffixPostingIndex index = new SuffixPostingIndex();
+
+        index.add(1111, 30);
+        index.add(1111, 10);
+        index.add(1111, 20);
+        index.add(1111, 10);
+
+        assertArrayEquals(new long[] {10, 20, 30}, index.get(1111));
+        assertArrayEquals(new long[0], index.get(2222));
+    }
+
+    @Test
+    void Should_MergeBatch_When_AddingAll() {
+        SuffixPostingIndex index = new SuffixPostingIndex();
+        index.add(1111, 5);
+        index.add(1111, 15);
+        SuffixPostingIndex.Builder batch = new SuffixPostingIndex.Builder();
+        batch.append(1111, 25);
+        batch.append(1111, 15);
+        batch.append(1111, 1);
+        batch.append(9999, 7);
+
+        index.addAll(batch);
+
+        assertArrayEquals(new long[] {1, 5, 15, 25}, index.get(1111));
+        assertArrayEquals(new long[] {7}, index.get(9999));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void Should_RestoreIdsAndWatermark_When_SnapshotRead() throws Exception {
+        SuffixPostingIndex index = new SuffixPostingIndex();
+        index.add(0, 3);
+        index.add(1111, 1);
+        index.add(1111, 2);
+        index.add(9999, 4);
+        Path snapshot = directory.resolve("last-four-index.bin");
+        index.writeSnapshot(snapshot, new SuffixPostingIndex.Coverage(DATABASE_ID, 4, COMPLETE_BEFORE));
+
+        SuffixPostingIndex.Builder restored = new SuffixPostingIndex.Builder();
+        SuffixPostingIndex.Coverage coverage = SuffixPostingIndex.readSnapshot(snapshot, DATABASE_ID, restored);
+        SuffixPostingIndex copy = new SuffixPostingIndex();
+        copy.addAll(restored);
+
+        assertEquals(4, coverage.watermark());
+        assertEquals(COMPLETE_BEFORE, coverage.completeBefore());
+        assertArrayEquals(new long[] {3}, copy.get(0));
+        assertArrayEquals(new long[] {1, 2}, copy.get(1111));
+        assertArrayEquals(new long[] {4}, copy.get(9999));
+    }
+
+    @Test
+    void Should_IgnoreSnapshot_When_FileIsTruncated() throws Exception {
+        SuffixPostingIndex index = new SuffixPostingIndex();
+        index.add(1111, 1);
+        Path snapshot = directory.resolve("last-four-index.bin");
+        index.writeSnapshot(snapshot, new SuffixPostingIndex.Coverage(DATABASE_ID, 1, COMPLETE_BEFORE));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertNull(SuffixPostingIndex.readSnapshot(snapshot, DATABASE_ID, new SuffixPostingIndex.Builder()));
+    }
+
+    @Test
+    void Should_IgnoreSnapshot_When_WrittenForAnotherDatabase() throws Exception {
+        SuffixPostingIndex index = new SuffixPostingIndex();
+        index.add(1111, 1);
+        Path snapshot = directory.resolve("last-four-index.bin");
+        index.writeSnapshot(snapshot, new SuffixPostingIndex.Coverage(DATABASE_ID, 1, COMPLETE_BEFORE));
+
+        SuffixPostingIndex.Builder restored = new SuffixPostingIndex.Builder();
+
+        assertNull(SuffixPostingIndex.readSnapshot(snapshot, UUID.randomUUID(), restored));
+    }
+
+    @Test
+    void Should_ParseSuffix_When_ExactlyFourDigits() {
+        assertEquals(42, SuffixPostingIndex.suffix("0042"));
+        assertEquals(9999, SuffixPostingIndex.suffix("9999"));
+        assertEquals(-1, SuffixPostingIndex.suffix("123"));
+        assertEquals(-1, SuffixPostingIndex.suffix("12a4"));
+        assertEquals(-1, SuffixPostingIndex.suffix(null));
+    }
+}
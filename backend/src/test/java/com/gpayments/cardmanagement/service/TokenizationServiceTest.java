@@ -0,0 +1,164 @@
+package com.gpayments.cardmanagement.service;
+
+import com.gpayments.cardmanagement.dto.TokenResponse;
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenizationServiceTest {
+
+    private static final String TEST_PAN = "4111111111111111";
+
+    private final PanValidationService panValidationService = new PanValidationService();
+    private final PanHashService panHashService = new PanHashService("TestPanHashPepper-0123456789abcdef");
+    private CardRepository cardRepository;
+    private TokenizationService tokenizationService;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        EncryptionService encryptionService = mock(EncryptionService.class);
+        when(encryptionService.maskPan(16, "1111")).thenReturn("************1111");
+        @SuppressWarnings("unchecked")
+        CardShards cardShards = new CardShards(mock(ObjectProvider.class), mock(PlatformTransactionManager.class), null);
+        tokenizationService = new TokenizationService(cardRepository, panHashService, panValidationService, encryptionService,
+            cardShards, new SimpleMeterRegistry(), 1000);
+    }
+
+    @Test
+    void Should_PreserveLengthAndLastFour_When_TokenGenerated() {
+        for (String pan : new String[] {"378282246310005", "4111111111111111", "6011000990139424", "4000000000000000006"}) {
+            String token = tokenizationService.generateToken(pan);
+
+            assertEquals(pan.length(), token.length());
+            assertEquals(pan.substring(pan.length() - 4), token.substring(token.length() - 4));
+            assertEquals(TokenizationService.TOKEN_PREFIX, token.charAt(0));
+            assertTrue(panValidationService.isValidPan(token), "Token not Luhn-valid: " + token);
+            assertNotEquals(pan, token);
+        }
+    }
+
+    @Test
+    void Should_IssueDistinctTokens_When_SamePanTokenizedRepeatedly() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            tokens.add(tokenizationService.generateToken(TEST_PAN));
+        }
+
+        assertEquals(1000, tokens.size());
+        // Ten random digits: no database round-trip needed to rule out collisions
+        verify(cardRepository, never()).findIdByPanToken(anyString());
+    }
+
+    @Test
+    void Should_ResolveFromIndex_When_CardRegistered() {
+        String token = tokenizationService.generateToken(TEST_PAN);
+        Card card = new Card();
+        card.setId(42L);
+        card.setPanToken(token);
+        tokenizationService.register(card);
+
+        Optional<TokenResponse> response = tokenizationService.detokenize(token);
+
+        assertTrue(response.isPresent());
+        assertEquals(42L, response.get().getCardId());
+        assertEquals("************1111", response.get().getMaskedPan());
+        verify(cardRepository, never()).findIdByPanToken(anyString());
+    }
+
+    @Test
+    void Should_FallBackToDatabase_When_TokenNotIndexed() {
+        String token = tokenizationService.generateToken(TEST_PAN);
+        when(cardRepository.findIdByPanToken(token)).thenReturn(Optional.of(7L));
+
+        assertEquals(7L, tokenizationService.detokenize(token).orElseThrow().getCardId());
+        assertEquals(7L, tokenizationService.detokenize(token).orElseThrow().getCardId());
+
+        verify(cardRepository).findIdByPanToken(token);
+    }
+
+    @Test
+    void Should_ThrowIllegalArgumentException_When_TokenMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> tokenizationService.detokenize(TEST_PAN));
+        assertThrows(IllegalArgumentException.class, () -> tokenizationService.detokenize("9abc"));
+    }
+
+    @Test
+    void Should_RetryWithNewToken_When_TokenCollidesOnInsert() {
+        Card card = card(TEST_PAN);
+        String collided = card.getPanToken();
+        int[] attempts = {0};
+
+        String saved = tokenizationService.withUniqueTokens(List.of(card), () -> {
+            if (attempts[0]++ == 0) {
+                card.setId(7L);
+                throw violation("PUBLIC.IDX_CARDS_PAN_TOKEN ON PUBLIC.CARDS(PAN_TOKEN)", "23505");
+            }
+            assertNull(card.getId());
+            return "saved";
+        });
+
+        assertEquals("saved", saved);
+        assertEquals(2, attempts[0]);
+        String token = card.getPanToken();
+        assertNotEquals(collided, token);
+        assertEquals(TEST_PAN.length(), token.length());
+        assertTrue(token.endsWith("1111"));
+        assertTrue(panValidationService.isValidPan(token), "Token not Luhn-valid: " + token);
+    }
+
+    @Test
+    void Should_Rethrow_When_OtherConstraintViolated() {
+        Card card = card(TEST_PAN);
+        String token = card.getPanToken();
+
+        assertThrows(DataIntegrityViolationException.class, () -> tokenizationService.withUniqueTokens(List.of(card), () -> {
+            throw violation(null, "23502");
+        }));
+        assertEquals(token, card.getPanToken());
+    }
+
+    @Test
+    void Should_Rethrow_When_OnlyMessageNamesTokenIndex() {
+        Card card = card(TEST_PAN);
+
+        assertThrows(DataIntegrityViolationException.class, () -> tokenizationService.withUniqueTokens(List.of(card), () -> {
+            throw new DataIntegrityViolationException("Check failed for idx_cards_pan_token");
+        }));
+    }
+
+    // As Spring translates Hibernate's exception for a failed flush
+    private static DataIntegrityViolationException violation(String constraintName, String sqlState) {
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("could not execute statement",
+                new SQLException("Constraint violation", sqlState), "insert into cards", constraintName));
+    }
+
+    private Card card(String pan) {
+        Card card = new Card();
+        card.setPanHash(panHashService.hash(pan));
+        card.setLastFourDigits(pan.substring(pan.length() - 4));
+        card.setPanLength(pan.length());
+        card.setPanToken(tokenizationService.generateToken(pan));
+        return card;
+    }
+}
@@ -0,0 +1,34 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+// Deterministic, Luhn-valid test PANs so datasets and lookups line up across runs
+final class CardFixtures {
+
+    private CardFixtures() {
+    }
+
+    // 16-digit Visa PAN: "4", the index zero-padded to 14 digits, then the Luhn check digit
+    static String pan(long index) {
+        char[] digits = new char[16];
+        digits[0] = '4';
+        long remaining = index;
+        for (int i = 14; i >= 1; i--) {
+            digits[i] = (char) ('0' + (remaining % 10));
+            remaining /= 10;
+        }
+
+        int sum = 0;
+        for (int i = 14; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            // Positions 14, 12, ... are doubled once the check digit is appended
+            if ((14 - i) % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        digits[15] = (char) ('0' + (10 - sum % 10) % 10);
+        return new String(digits);
+    }
+}
@@ -0,0 +1,156 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Raw indexed lookups on the Flyway schema as the cards table grows: a PAN HMAC match and the first
+// page of a last-four search should stay flat from 10K to 10M rows. Setup fails if either query's
+// plan stops using its index. Seeding 10M rows takes a few minutes; narrow it with -p rows=10000.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CardIndexBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+    private static final int PAGE_SIZE = 50;
+
+    private static final String PAN_HASH_QUERY =
+        "SELECT id, cardholder_name, pan_length, last_four_digits, created_time FROM cards WHERE pan_hmac = ?";
+    private static final String LAST_FOUR_QUERY =
+        "SELECT id, cardholder_name, pan_length, last_four_digits, created_time FROM cards "
+            + "WHERE last_four_digits = ? ORDER BY created_time, id LIMIT " + PAGE_SIZE;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Path dataDirectory;
+    private Connection connection;
+    private PreparedStatement panHashQuery;
+    private PreparedStatement lastFourQuery;
+    private List<byte[]> sampleHashes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dataDirectory = Files.createTempDirectory("card-index-benchmark");
+        String url = "jdbc:h2:file:" + dataDirectory.resolve("cards") + ";CACHE_SIZE=524288";
+        Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration/h2").load().migrate();
+
+        connection = DriverManager.getConnection(url, "sa", "");
+        sampleHashes = seed();
+        requireIndex(PAN_HASH_QUERY.replace("?", "X'00'"), "idx_cards_pan_hmac");
+        requireIndex(LAST_FOUR_QUERY.replace("?", "'1234'"), "idx_cards_last_four_created");
+        panHashQuery = connection.prepareStatement(PAN_HASH_QUERY);
+        lastFourQuery = connection.prepareStatement(LAST_FOUR_QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        connection.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public long lookupByPanHash() throws SQLException {
+        panHashQuery.setBytes(1, sampleHashes.get(ThreadLocalRandom.current().nextInt(sampleHashes.size())));
+        return drain(panHashQuery);
+    }
+
+    @Benchmark
+    public long lookupLastFourPage() throws SQLException {
+        lastFourQuery.setString(1, String.format("%04d", ThreadLocalRandom.current().nextInt(10_000)));
+        return drain(lastFourQuery);
+    }
+
+    // Private helper methods
+    private List<byte[]> seed() throws SQLException {
+        List<byte[]> hashes = new ArrayList<>();
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO cards (id, cardholder_name, encrypted_pan, pan_hmac, last_four_digits, pan_length, created_time) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                byte[] panHash = new byte[32];
+                random.nextBytes(panHash);
+                if (i % 1_000 == 0 || hashes.isEmpty()) {
+                    hashes.add(panHash);
+                }
+                insert.setLong(1, i);
+                insert.setString(2, "Cardholder " + i);
+                insert.setString(3, "ciphertext");
+                insert.setBytes(4, panHash);
+                insert.setString(5, String.format("%04d", random.nextInt(10_000)));
+                insert.setInt(6, 16);
+                insert.setTimestamp(7, Timestamp.valueOf(start.plusSeconds(i)));
+                insert.addBatch();
+                if (i % INSERT_BATCH == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+        return hashes;
+    }
+
+    private void requireIndex(String sql, String indexName) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+            String text = plan.next() ? plan.getString(1) : "";
+            if (!text.toLowerCase(Locale.ROOT).contains(indexName)) {
+                throw new IllegalStateException("Expected " + indexName + " in plan: " + text);
+            }
+        }
+    }
+
+    private static long drain(PreparedStatement query) throws SQLException {
+        long sum = 0;
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                sum += resultSet.getLong(1);
+            }
+        }
+        return sum;
+    }
+}
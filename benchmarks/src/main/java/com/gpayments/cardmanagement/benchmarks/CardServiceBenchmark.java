@@ -0,0 +1,118 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.CardManagementApplication;
+import com.gpayments.cardmanagement.dto.CardPage;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.dto.CardResponse;
+import com.gpayments.cardmanagement.service.CardService;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.LastFourIndex;
+import com.gpayments.cardmanagement.service.PanHashService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// End-to-end service paths against an embedded file-backed H2 database seeded with datasetSize cards.
+// Seeding the 10M dataset takes several minutes; narrow it with -p datasetSize=10000 while iterating.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CardServiceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int datasetSize;
+
+    // -p lastFourIndex=false compares last-four searches served by the database index alone
+    @Param({"true"})
+    public boolean lastFourIndex;
+
+    private Path dataDirectory;
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private AtomicLong nextNewPan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        dataDirectory = Files.createTempDirectory("card-benchmark");
+        context = new SpringApplicationBuilder(CardManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:file:" + dataDirectory.resolve("cards") + ";CACHE_SIZE=524288",
+                "app.encryption.keystore.path=" + dataDirectory.resolve("master-key.p12"),
+                "app.encryption.keystore.create-if-missing=true",
+                "app.encryption.rotation.initial-delay=P1D",
+                "app.hashing.rehash.enabled=false",
+                "app.duplicates.filter.snapshot-path=",
+                "app.search.last-four-index.snapshot-path=",
+                "app.search.last-four-index.enabled=" + lastFourIndex,
+                "logging.level.com.gpayments=WARN")
+            .run();
+
+        DatasetSeeder.seed(context.getBean(JdbcTemplate.class), context.getBean(EncryptionService.class),
+            context.getBean(PanHashService.class), datasetSize);
+        if (lastFourIndex) {
+            DatasetSeeder.awaitLastFourIndex(context.getBean(LastFourIndex.class));
+        }
+        cardService = context.getBean(CardService.class);
+        nextNewPan = new AtomicLong(datasetSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public CardResponse createCard() {
+        CardRequest request = new CardRequest();
+        request.setCardholderName("Benchmark Cardholder");
+        request.setPan(SecurePan.of(CardFixtures.pan(nextNewPan.getAndIncrement())));
+        request.setExpiryDate("12/30");
+        request.setCvv("123");
+        return cardService.createCard(request);
+    }
+
+    @Benchmark
+    public List<CardResponse> searchByPan() {
+        return cardService.searchByPan(CardFixtures.pan(ThreadLocalRandom.current().nextInt(datasetSize)));
+    }
+
+    @Benchmark
+    public List<CardResponse> searchByLastFourDigits() {
+        return cardService.searchByLastFourDigits(String.format("%04d", ThreadLocalRandom.current().nextInt(10_000)));
+    }
+
+    @Benchmark
+    public CardPage searchByLastFourDigitsPage() {
+        String lastFour = String.format("%04d", ThreadLocalRandom.current().nextInt(10_000));
+        return cardService.searchByLastFourDigitsPage(lastFour, null, 50);
+    }
+}
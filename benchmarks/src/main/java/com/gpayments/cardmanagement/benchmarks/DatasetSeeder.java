@@ -0,0 +1,67 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.service.EncryptedPan;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.LastFourIndex;
+import com.gpayments.cardmanagement.service.PanHashService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bulk-loads cards straight through JDBC, with real HMACs and ciphertexts, so PAN lookups
+// hit real index entries. Card i holds CardFixtures.pan(i) and has id i + 1.
+final class DatasetSeeder {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    private DatasetSeeder() {
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, EncryptionService encryptionService,
+                     PanHashService panHashService, int size) {
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < size; i++) {
+            String pan = CardFixtures.pan(i);
+            EncryptedPan encrypted = encryptionService.encrypt(pan);
+            batch.add(new Object[] {
+                (long) i + 1,
+                "Cardholder " + i,
+                panHashService.hash(pan),
+                pan.substring(pan.length() - 4),
+                pan.length(),
+                encrypted.ciphertext(),
+                encrypted.nonce(),
+                encrypted.dataKeyId(),
+                Timestamp.valueOf(start.plusNanos(i * 1_000L))
+            });
+            if (batch.size() == INSERT_BATCH) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(jdbcTemplate, batch);
+        }
+        // Keep ids handed out by the application clear of the seeded range
+        jdbcTemplate.execute("ALTER SEQUENCE card_seq RESTART WITH " + (size + 1));
+    }
+
+    // Seeded rows bypass the application, so bring the last-four index up to date before measuring
+    static void awaitLastFourIndex(LastFourIndex lastFourIndex) throws InterruptedException {
+        while (!lastFourIndex.isReady()) {
+            Thread.sleep(10);
+        }
+        lastFourIndex.refresh();
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO cards (id, cardholder_name, pan_hmac, last_four_digits, pan_length,"
+                + " pan_ciphertext, pan_nonce, data_key_id, created_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+            batch);
+    }
+}
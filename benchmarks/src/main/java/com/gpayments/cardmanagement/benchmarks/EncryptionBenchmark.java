@@ -0,0 +1,78 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.service.EncryptedPan;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.PanHashService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionBenchmark {
+
+    private static final String PAN = CardFixtures.pan(123_456_789L);
+
+    private EncryptionService encryptionService;
+    private PanHashService panHashService;
+    private EncryptedPan encryptedPan;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionService = new EncryptionService(new FixedDataKeyService(), "BenchmarkLegacySecretKey-0123456789", "");
+        panHashService = new PanHashService("BenchmarkPanHashPepper-0123456789abcdef");
+        encryptedPan = encryptionService.encrypt(PAN);
+    }
+
+    @Benchmark
+    public EncryptedPan encrypt() {
+        return encryptionService.encrypt(PAN);
+    }
+
+    @Benchmark
+    public byte[] decrypt() {
+        return encryptionService.decrypt(encryptedPan);
+    }
+
+    @Benchmark
+    public byte[] generateHash() {
+        return panHashService.hash(PAN);
+    }
+
+    @Benchmark
+    public String maskPan() {
+        return encryptionService.maskPan(PAN);
+    }
+
+    @Benchmark
+    public String maskPanFromStoredFields() {
+        return encryptionService.maskPan(16, "1234");
+    }
+
+    // Pools must not serialise concurrent callers
+    @Benchmark
+    @Threads(Threads.MAX)
+    public EncryptedPan encryptContended() {
+        return encryptionService.encrypt(PAN);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public byte[] generateHashContended() {
+        return panHashService.hash(PAN);
+    }
+}
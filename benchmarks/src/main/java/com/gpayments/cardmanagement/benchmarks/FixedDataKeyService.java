@@ -0,0 +1,33 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.service.DataKeyService;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+
+// Single in-memory data key, so crypto micro-benchmarks need neither a keystore nor a database
+class FixedDataKeyService extends DataKeyService {
+
+    private static final int KEY_ID = 1;
+
+    private final ActiveDataKey activeKey;
+
+    FixedDataKeyService() throws NoSuchAlgorithmException {
+        super(null, null, null, null);
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        this.activeKey = new ActiveDataKey(KEY_ID, generator.generateKey(), LocalDateTime.now());
+    }
+
+    @Override
+    public ActiveDataKey activeKey() {
+        return activeKey;
+    }
+
+    @Override
+    public SecretKey key(int id) {
+        return activeKey.key();
+    }
+}
@@ -0,0 +1,76 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.service.EncryptedPan;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.PanHashService;
+import com.gpayments.cardmanagement.service.PanValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Decode, validate, hash, encrypt and mask one create request, with the PAN as a String versus as a
+// SecurePan. Compare gc.alloc.rate.norm between the two.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PanHandlingBenchmark {
+
+    // The request shape before PANs were held as SecurePan
+    public static class StringPanRequest {
+        public String cardholderName;
+        public String pan;
+        public String expiryDate;
+        public String cvv;
+    }
+
+    private static final String BODY = "{\"cardholderName\":\"John Doe\",\"pan\":\"" + CardFixtures.pan(123_456_789L)
+        + "\",\"expiryDate\":\"12/30\",\"cvv\":\"123\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PanValidationService panValidationService = new PanValidationService();
+    private EncryptionService encryptionService;
+    private PanHashService panHashService;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionService = new EncryptionService(new FixedDataKeyService(), "BenchmarkLegacySecretKey-0123456789", "");
+        panHashService = new PanHashService("BenchmarkPanHashPepper-0123456789abcdef");
+    }
+
+    @Benchmark
+    public void stringPan(Blackhole blackhole) throws Exception {
+        String pan = objectMapper.readValue(BODY, StringPanRequest.class).pan;
+        blackhole.consume(panValidationService.isValidPan(pan));
+        blackhole.consume(panHashService.hash(pan));
+        EncryptedPan encrypted = encryptionService.encrypt(pan);
+        blackhole.consume(encrypted);
+        blackhole.consume(encryptionService.maskPan(pan));
+    }
+
+    @Benchmark
+    public void securePan(Blackhole blackhole) throws Exception {
+        try (SecurePan pan = objectMapper.readValue(BODY, CardRequest.class).getPan()) {
+            blackhole.consume(panValidationService.isValidPan(pan.digits()));
+            blackhole.consume(panHashService.hash(pan.digits()));
+            EncryptedPan encrypted = encryptionService.encrypt(pan.digits());
+            blackhole.consume(encrypted);
+            blackhole.consume(encryptionService.maskPan(pan.length(), pan.lastFour()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.service.PanValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PanValidationBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final PanValidationService panValidationService = new PanValidationService();
+
+    private String validPan;
+    private String invalidPan;
+    private byte[] validPanBytes;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() {
+        validPan = CardFixtures.pan(42L);
+        invalidPan = validPan.substring(0, 15) + (char) ('0' + (validPan.charAt(15) - '0' + 1) % 10);
+        validPanBytes = validPan.getBytes(StandardCharsets.US_ASCII);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(i % 10 == 0 ? invalidPan : CardFixtures.pan(i));
+        }
+    }
+
+    @Benchmark
+    public boolean isValidPan() {
+        return panValidationService.isValidPan(validPan);
+    }
+
+    @Benchmark
+    public boolean isValidPanRejectsLuhn() {
+        return panValidationService.isValidPan(invalidPan);
+    }
+
+    @Benchmark
+    public boolean isValidPanBytes() {
+        return panValidationService.isValidPan(validPanBytes);
+    }
+
+    @Benchmark
+    public BitSet validateAll() {
+        return panValidationService.validateAll(batch);
+    }
+}
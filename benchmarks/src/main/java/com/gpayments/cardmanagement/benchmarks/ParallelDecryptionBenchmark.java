@@ -0,0 +1,75 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.model.Card;
+import com.gpayments.cardmanagement.service.CardMetrics;
+import com.gpayments.cardmanagement.service.EncryptedPan;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.ParallelDecryptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Latency of decrypting one search result of resultSize rows, sequentially (threshold above any
+// result size) versus split across the core-sized pool. Run with -t to see the pool shared by
+// concurrent searches.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelDecryptionBenchmark {
+
+    @Param({"10", "50", "100", "500", "1000"})
+    public int resultSize;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private ParallelDecryptor parallelDecryptor;
+    private List<Card> cards;
+
+    @Setup
+    public void setUp() throws Exception {
+        EncryptionService encryptionService = new EncryptionService(new FixedDataKeyService(), "BenchmarkLegacySecretKey-0123456789", "");
+        CardMetrics metrics = new CardMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        int threshold = mode.equals("parallel") ? 64 : Integer.MAX_VALUE;
+        parallelDecryptor = new ParallelDecryptor(encryptionService, metrics, 0, threshold, 16);
+
+        cards = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            EncryptedPan encrypted = encryptionService.encrypt(CardFixtures.pan(i));
+            Card card = new Card();
+            card.setId((long) i);
+            card.setDataKeyId(encrypted.dataKeyId());
+            card.setPanNonce(encrypted.nonce());
+            card.setEncryptedPan(encrypted.ciphertext());
+            cards.add(card);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallelDecryptor.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> decryptResult() {
+        return parallelDecryptor.decrypt(cards, pan -> pan.length);
+    }
+}
@@ -0,0 +1,176 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.CardManagementApplication;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.LastFourIndex;
+import com.gpayments.cardmanagement.service.PanHashService;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drives concurrent last-four searches against the real HTTP stack, once with platform request threads
+// and once with virtual threads, and reports the peak of http.server.requests.active (searches in flight
+// on the server) next to client-side throughput and latency. Client and server share the machine, so
+// compare the two modes with each other rather than reading the numbers as absolute capacity.
+//
+// mvn -pl benchmarks -am package exec:exec -Dbenchmark.main=com.gpayments.cardmanagement.benchmarks.SearchLoadTest
+//     -Dbenchmark.args="clients=2000 duration=PT30S warmup=PT5S dataset=100000"
+public class SearchLoadTest {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 5;
+
+    record Result(String mode, long requests, long errors, double requestsPerSecond,
+                  double p50Millis, double p99Millis, int maxInFlight) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT20S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT5S"));
+        int datasetSize = Integer.parseInt(options.getOrDefault("dataset", "100000"));
+
+        List<Result> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[] {false, true}) {
+            results.add(run(virtualThreads, clients, warmup, duration, datasetSize));
+        }
+
+        System.out.printf("%n%d clients, %s measured after %s warmup, %d cards%n", clients, duration, warmup, datasetSize);
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %14s%n",
+            "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max in-flight");
+        for (Result result : results) {
+            System.out.printf("%-10s %10d %8d %10.0f %10.2f %10.2f %14d%n", result.mode(), result.requests(),
+                result.errors(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.maxInFlight());
+        }
+    }
+
+    private static Result run(boolean virtualThreads, int clients, Duration warmup, Duration duration,
+                              int datasetSize) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        Path dataDirectory = Files.createTempDirectory("card-load-test");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CardManagementApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "spring.datasource.url=jdbc:h2:mem:load_" + mode + ";DB_CLOSE_DELAY=-1",
+                "app.encryption.keystore.path=" + dataDirectory.resolve("master-key.p12"),
+                "app.encryption.keystore.create-if-missing=true",
+                "app.encryption.rotation.initial-delay=P1D",
+                "app.hashing.rehash.enabled=false",
+                "app.duplicates.filter.snapshot-path=",
+                "app.search.last-four-index.snapshot-path=",
+                // Measures raw capacity, so nothing is shed
+                "app.search.rate-limit.enabled=false",
+                "app.search.concurrency.enabled=false",
+                "logging.level.com.gpayments=WARN")
+            .run();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            DatasetSeeder.seed(context.getBean(JdbcTemplate.class), context.getBean(EncryptionService.class),
+                context.getBean(PanHashService.class), datasetSize);
+            DatasetSeeder.awaitLastFourIndex(context.getBean(LastFourIndex.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long deadline = measureFrom + duration.toNanos();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            sampler.scheduleAtFixedRate(() -> {
+                int inFlight = meterRegistry.find("http.server.requests.active").longTaskTimers().stream()
+                    .mapToInt(LongTaskTimer::activeTasks)
+                    .sum();
+                maxInFlight.accumulateAndGet(inFlight, Math::max);
+            }, warmup.toMillis(), SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+            LongAdder errors = new LongAdder();
+            List<Future<long[]>> clientLatencies = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                clientLatencies.add(clientThreads.submit(() -> searchUntil(httpClient, port, measureFrom, deadline, errors)));
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            for (Future<long[]> future : clientLatencies) {
+                for (long latency : future.get()) {
+                    latencies.add(latency);
+                }
+            }
+            latencies.sort(null);
+
+            return new Result(mode, latencies.size(), errors.sum(),
+                latencies.size() / (duration.toNanos() / 1e9),
+                percentile(latencies, 50), percentile(latencies, 99), maxInFlight.get());
+        } finally {
+            sampler.shutdownNow();
+            context.close();
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    // One closed-loop client: sends the next search as soon as the previous one completes
+    private static long[] searchUntil(HttpClient httpClient, int port, long measureFrom, long deadline,
+                                      LongAdder errors) throws InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            String lastFour = String.format("%04d", ThreadLocalRandom.current().nextInt(10_000));
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/cards/search/last-four?lastFourDigits=" + lastFour))
+                .GET()
+                .build();
+            boolean failed;
+            try {
+                failed = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200;
+            } catch (IOException e) {
+                failed = true;
+            }
+            if (now >= measureFrom) {
+                if (failed) {
+                    errors.increment();
+                } else {
+                    latencies.add(System.nanoTime() - now);
+                }
+            }
+        }
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    static double percentile(List<Long> sortedNanos, int percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1);
+        return sortedNanos.get(index) / 1e6;
+    }
+}
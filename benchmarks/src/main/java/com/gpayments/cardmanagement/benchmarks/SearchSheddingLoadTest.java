@@ -0,0 +1,165 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.CardManagementApplication;
+import com.gpayments.cardmanagement.service.EncryptionService;
+import com.gpayments.cardmanagement.service.LastFourIndex;
+import com.gpayments.cardmanagement.service.PanHashService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Overloads the last-four search with far more closed-loop clients than the server can serve, once with
+// search limiting off and once with the per-client rate limit and adaptive concurrency limit on, and
+// reports latency of the searches that were served next to how many were shed with 429/503. With
+// limiting on, p99 of served searches should stay near the unloaded latency while the excess is shed;
+// with it off every search queues and p99 grows with the number of clients.
+//
+// mvn -pl benchmarks -am package exec:exec -Dbenchmark.main=com.gpayments.cardmanagement.benchmarks.SearchSheddingLoadTest
+//     -Dbenchmark.args="clients=2000 duration=PT30S warmup=PT10S dataset=100000 rate=20"
+public class SearchSheddingLoadTest {
+
+    record Result(String mode, long served, long rateLimited, long overloaded, long errors,
+                  double servedPerSecond, double p50Millis, double p99Millis, int finalLimit) {}
+
+    private record Counters(LongAdder rateLimited, LongAdder overloaded, LongAdder errors) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "2000"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT20S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        int datasetSize = Integer.parseInt(options.getOrDefault("dataset", "100000"));
+        String rate = options.getOrDefault("rate", "20");
+
+        List<Result> results = new ArrayList<>();
+        for (boolean limited : new boolean[] {false, true}) {
+            results.add(run(limited, rate, clients, warmup, duration, datasetSize));
+        }
+
+        System.out.printf("%n%d clients, %s measured after %s warmup, %d cards, %s searches/s per client%n",
+            clients, duration, warmup, datasetSize, rate);
+        System.out.printf("%-10s %10s %10s %10s %8s %10s %10s %10s %8s%n",
+            "mode", "served", "429", "503", "errors", "served/s", "p50 ms", "p99 ms", "limit");
+        for (Result result : results) {
+            System.out.printf("%-10s %10d %10d %10d %8d %10.0f %10.2f %10.2f %8s%n", result.mode(), result.served(),
+                result.rateLimited(), result.overloaded(), result.errors(), result.servedPerSecond(),
+                result.p50Millis(), result.p99Millis(), result.finalLimit() < 0 ? "-" : result.finalLimit());
+        }
+    }
+
+    private static Result run(boolean limited, String rate, int clients, Duration warmup, Duration duration,
+                              int datasetSize) throws Exception {
+        String mode = limited ? "limited" : "unlimited";
+        Path dataDirectory = Files.createTempDirectory("card-shedding-test");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CardManagementApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.threads.virtual.enabled=true",
+                "spring.datasource.url=jdbc:h2:mem:shedding_" + mode + ";DB_CLOSE_DELAY=-1",
+                "app.encryption.keystore.path=" + dataDirectory.resolve("master-key.p12"),
+                "app.encryption.keystore.create-if-missing=true",
+                "app.encryption.rotation.initial-delay=P1D",
+                "app.hashing.rehash.enabled=false",
+                "app.duplicates.filter.snapshot-path=",
+                "app.search.last-four-index.snapshot-path=",
+                "app.search.rate-limit.enabled=" + limited,
+                "app.search.rate-limit.permits-per-second=" + rate,
+                "app.search.concurrency.enabled=" + limited,
+                "logging.level.com.gpayments=WARN")
+            .run();
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            DatasetSeeder.seed(context.getBean(JdbcTemplate.class), context.getBean(EncryptionService.class),
+                context.getBean(PanHashService.class), datasetSize);
+            DatasetSeeder.awaitLastFourIndex(context.getBean(LastFourIndex.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long deadline = measureFrom + duration.toNanos();
+            Counters counters = new Counters(new LongAdder(), new LongAdder(), new LongAdder());
+            List<Future<long[]>> clientLatencies = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                String apiKey = "load-client-" + i;
+                clientLatencies.add(clientThreads.submit(
+                    () -> searchUntil(httpClient, port, apiKey, measureFrom, deadline, counters)));
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            for (Future<long[]> future : clientLatencies) {
+                for (long latency : future.get()) {
+                    latencies.add(latency);
+                }
+            }
+            latencies.sort(null);
+
+            Gauge limit = context.getBean(MeterRegistry.class).find("card.search.concurrency.limit").gauge();
+            return new Result(mode, latencies.size(), counters.rateLimited().sum(), counters.overloaded().sum(),
+                counters.errors().sum(), latencies.size() / (duration.toNanos() / 1e9),
+                SearchLoadTest.percentile(latencies, 50), SearchLoadTest.percentile(latencies, 99),
+                limited && limit != null ? (int) limit.value() : -1);
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    // One closed-loop client; a shed search is retried at once, as an impatient client would
+    private static long[] searchUntil(HttpClient httpClient, int port, String apiKey, long measureFrom, long deadline,
+                                      Counters counters) throws InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long now;
+        while ((now = System.nanoTime()) < deadline) {
+            String lastFour = String.format("%04d", ThreadLocalRandom.current().nextInt(10_000));
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/cards/search/last-four?lastFourDigits=" + lastFour))
+                .header("X-API-Key", apiKey)
+                .GET()
+                .build();
+            int status;
+            try {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            if (now < measureFrom) {
+                continue;
+            }
+            switch (status) {
+                case 200 -> latencies.add(System.nanoTime() - now);
+                case 429 -> counters.rateLimited().increment();
+                case 503 -> counters.overloaded().increment();
+                default -> counters.errors().increment();
+            }
+        }
+        return latencies.stream().mapToLong(Long::longValue).toArray();
+    }
+}
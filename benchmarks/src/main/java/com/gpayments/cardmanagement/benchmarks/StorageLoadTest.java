@@ -0,0 +1,198 @@
+package com.gpayments.cardmanagement.benchmarks;
+
+import com.gpayments.cardmanagement.CardManagementApplication;
+import com.gpayments.cardmanagement.dto.BulkImportResponse;
+import com.gpayments.cardmanagement.dto.CardRequest;
+import com.gpayments.cardmanagement.model.SecurePan;
+import com.gpayments.cardmanagement.service.BulkImportService;
+import com.gpayments.cardmanagement.service.CardService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Insert and search throughput per storage backend, through the real service and JPA path. Each backend
+// gets a fresh database: the in-memory ones are created per run, h2file uses a temp directory, and the
+// postgres profile uses DATABASE_URL / DATABASE_USERNAME / DATABASE_PASSWORD, which must point at an
+// empty database. Writes a Markdown report to target/storage-load-report.md.
+//
+// mvn -pl benchmarks -am package exec:exec -Dbenchmark.main=com.gpayments.cardmanagement.benchmarks.StorageLoadTest
+//     -Dbenchmark.args="backends=default,h2file,pgmode,postgres threads=8 duration=PT20S bulk=200000"
+public class StorageLoadTest {
+
+    private static final Path REPORT = Path.of("target", "storage-load-report.md");
+
+    record Measurement(double opsPerSecond, double p50Millis, double p99Millis) {}
+
+    record BackendResult(String backend, double bulkCardsPerSecond, Measurement create,
+                         Measurement searchByPan, Measurement searchByLastFour) {}
+
+    @FunctionalInterface
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+        List<String> backends = Arrays.asList(options.getOrDefault("backends", "default,h2file,pgmode").split(","));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT20S"));
+        int bulk = Integer.parseInt(options.getOrDefault("bulk", "200000"));
+
+        List<BackendResult> results = new ArrayList<>();
+        for (String backend : backends) {
+            results.add(run(backend.trim(), threads, duration, bulk));
+        }
+
+        StringBuilder report = new StringBuilder()
+            .append("# Storage load test\n\n")
+            .append(String.format("- Run: %s%n", OffsetDateTime.now()))
+            .append(String.format("- JVM: %s, %d cores%n", Runtime.version(), Runtime.getRuntime().availableProcessors()))
+            .append(String.format("- %d cards bulk-imported first; then %d threads per operation for %s%n%n", bulk, threads, duration))
+            .append("| backend | bulk insert cards/s | create ops/s | create p99 ms | PAN search ops/s | PAN search p99 ms"
+                + " | last-four page ops/s | last-four page p99 ms |\n")
+            .append("|---|---:|---:|---:|---:|---:|---:|---:|\n");
+        for (BackendResult result : results) {
+            report.append(String.format("| %s | %.0f | %.0f | %.2f | %.0f | %.2f | %.0f | %.2f |%n", result.backend(),
+                result.bulkCardsPerSecond(),
+                result.create().opsPerSecond(), result.create().p99Millis(),
+                result.searchByPan().opsPerSecond(), result.searchByPan().p99Millis(),
+                result.searchByLastFour().opsPerSecond(), result.searchByLastFour().p99Millis()));
+        }
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, report);
+        System.out.println();
+        System.out.println(report);
+        System.out.println("Report written to " + REPORT.toAbsolutePath());
+    }
+
+    private static BackendResult run(String backend, int threads, Duration duration, int bulk) throws Exception {
+        Path dataDirectory = Files.createTempDirectory("card-storage-test");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(CardManagementApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "H2_DATA_DIR=" + dataDirectory,
+                "app.encryption.keystore.path=" + dataDirectory.resolve("master-key.p12"),
+                "app.encryption.keystore.create-if-missing=true",
+                "app.encryption.rotation.initial-delay=P1D",
+                "app.hashing.rehash.enabled=false",
+                // Measure the storage path itself: no result cache, no duplicate lookups
+                "app.cache.pan-lookup.maximum-size=0",
+                "app.duplicates.policy=ALLOW",
+                "logging.level.com.gpayments=WARN");
+        if (!backend.equals("default")) {
+            builder.profiles(backend);
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            CardService cardService = context.getBean(CardService.class);
+            BulkImportService bulkImportService = context.getBean(BulkImportService.class);
+
+            long started = System.nanoTime();
+            BulkImportResponse imported = bulkImportService.importCards(new ByteArrayInputStream(ndjson(bulk)), result -> {});
+            double bulkSeconds = (System.nanoTime() - started) / 1e9;
+            if (imported.getCreated() != bulk) {
+                throw new IllegalStateException(backend + ": bulk import created " + imported.getCreated() + " of " + bulk);
+            }
+
+            AtomicLong nextPan = new AtomicLong(bulk);
+            Measurement create = measure(threads, duration, () -> {
+                CardRequest request = request(nextPan.getAndIncrement());
+                cardService.createCard(request);
+            });
+            Measurement searchByPan = measure(threads, duration,
+                () -> cardService.searchByPan(CardFixtures.pan(ThreadLocalRandom.current().nextInt(bulk))));
+            Measurement searchByLastFour = measure(threads, duration,
+                () -> cardService.searchByLastFourDigitsPage(
+                    String.format("%04d", ThreadLocalRandom.current().nextInt(10_000)), null, 50));
+
+            return new BackendResult(backend, bulk / bulkSeconds, create, searchByPan, searchByLastFour);
+        } finally {
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    // Closed loop: each thread runs the operation back to back for the whole duration
+    private static Measurement measure(int threads, Duration duration, Operation operation) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1 << 16];
+                    int count = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < deadline) {
+                        operation.run();
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - now;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            return new Measurement(all.length / (duration.toNanos() / 1e9), percentile(all, 50), percentile(all, 99));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] ndjson(int cards) {
+        StringBuilder lines = new StringBuilder(cards * 110);
+        for (int i = 0; i < cards; i++) {
+            lines.append("{\"cardholderName\":\"Cardholder ").append(i)
+                .append("\",\"pan\":\"").append(CardFixtures.pan(i))
+                .append("\",\"expiryDate\":\"12/30\",\"cvv\":\"123\"}\n");
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CardRequest request(long index) {
+        CardRequest request = new CardRequest();
+        request.setCardholderName("Cardholder " + index);
+        request.setPan(SecurePan.of(CardFixtures.pan(index)));
+        request.setExpiryDate("12/30");
+        request.setCvv("123");
+        return request;
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1);
+        return sortedNanos[index] / 1e6;
+    }
+}